@@ -1,7 +1,5 @@
 package taboolib.common.env;
 
-import me.lucko.jarrelocator.JarRelocator;
-import me.lucko.jarrelocator.Relocation;
 import org.jetbrains.annotations.Nullable;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -11,6 +9,7 @@ import org.xml.sax.SAXException;
 import taboolib.common.ClassAppender;
 import taboolib.common.PrimitiveIO;
 import taboolib.common.PrimitiveSettings;
+import taboolib.common.RelocationCache;
 import taboolib.common.TabooLib;
 
 import javax.xml.parsers.DocumentBuilder;
@@ -21,8 +20,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.text.ParseException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
 /**
@@ -79,6 +77,11 @@ public class DependencyDownloader extends AbstractXmlParser {
      */
     private boolean isTransitive = true;
 
+    /**
+     * 同时下载的依赖数量
+     */
+    private int parallelism = PrimitiveSettings.DOWNLOAD_PARALLELISM;
+
     public DependencyDownloader(@Nullable File baseDir) {
         this.baseDir = baseDir;
     }
@@ -122,23 +125,13 @@ public class DependencyDownloader extends AbstractXmlParser {
                     ClassLoader loader = ClassAppender.addPath(file.toPath(), PrimitiveSettings.IS_ISOLATED_MODE, dep.isExternal());
                     injectedDependencies.computeIfAbsent(dep, dependency -> new HashSet<>()).add(loader);
                 } else {
-                    // 获取重定向后的文件
-                    String name = file.getName().substring(0, file.getName().lastIndexOf('.'));
-                    File rel = new File(file.getParentFile(), name + "_r2_" + Math.abs(relocation.hashCode()) + ".jar");
-                    // 如果文件不存在或者文件大小为 0，就执行重定向逻辑
-                    if (!rel.exists() || rel.length() == 0) {
-                        try {
-                            // 提示信息
-                            PrimitiveIO.println("Relocating ...");
-                            // 获取重定向规则
-                            List<Relocation> rules = relocation.stream().map(JarRelocation::toRelocation).collect(Collectors.toList());
-                            // 获取临时文件
-                            File tempSourceFile = PrimitiveIO.copyFile(file, File.createTempFile(file.getName(), ".jar"));
-                            // 运行
-                            new JarRelocator(tempSourceFile, rel, rules).run();
-                        } catch (IOException e) {
-                            throw new IllegalStateException(String.format("Unable to relocate %s%n", dep), e);
-                        }
+                    // 获取重定向后的文件（共享的重定向缓存）
+                    File rel;
+                    try {
+                        List<String[]> rules = relocation.stream().map(r -> new String[]{r.getPattern(), r.getRelocatedPattern()}).collect(Collectors.toList());
+                        rel = RelocationCache.relocate(file, rules);
+                    } catch (IOException e) {
+                        throw new IllegalStateException(String.format("Unable to relocate %s%n", dep), e);
                     }
                     // 注入重定向后的文件
                     ClassLoader loader = ClassAppender.addPath(rel.toPath(), PrimitiveSettings.IS_ISOLATED_MODE, dep.isExternal());
@@ -166,71 +159,173 @@ public class DependencyDownloader extends AbstractXmlParser {
         if (repositories.isEmpty()) {
             throw new IllegalArgumentException("No repositories specified");
         }
-        // 检查依赖版本
-        dependency.checkVersion(repositories, baseDir);
-        // 如果已经下载过了，就直接返回
-        if (downloadedDependencies.contains(dependency)) {
-            Set<Dependency> singleton = new HashSet<>();
-            singleton.add(dependency);
-            return singleton;
+        return loadDependency(new ArrayList<>(repositories), Collections.singletonList(dependency));
+    }
+
+    /**
+     * 下载一个依赖项列表以及它们的所有依赖项，并将它们存储在 {@link DependencyDownloader#baseDir} 中。
+     * <p>
+     * 依赖树按层遍历，同一层中的依赖项会被并行下载（数量受 {@link DependencyDownloader#parallelism} 限制），
+     * 返回结果按层级及声明顺序排列，与下载完成的先后无关。
+     */
+    public Set<Dependency> loadDependency(List<Repository> repositories, List<Dependency> dependencies) throws IOException {
+        createBaseDir();
+        Set<Dependency> downloaded = new LinkedHashSet<>();
+        // 已处理的声明（未解析版本前）及已解析的坐标
+        Set<String> declared = new HashSet<>();
+        Set<String> visited = new HashSet<>();
+        List<Resolution> pending = new ArrayList<>();
+        for (Dependency dep : dependencies) {
+            pending.add(new Resolution(dep, repositories));
+        }
+        ExecutorService executor = parallelism > 1 ? Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "TabooLib-DependencyDownloader");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        try {
+            while (!pending.isEmpty()) {
+                // 相同的声明解析结果相同，无需重复检查
+                List<Resolution> checking = new ArrayList<>();
+                for (Resolution resolution : pending) {
+                    if (!declared.add(resolution.dependency.toString())) {
+                        continue;
+                    }
+                    if (resolution.repositories.isEmpty()) {
+                        throw new IllegalArgumentException("No repositories specified");
+                    }
+                    checking.add(resolution);
+                }
+                // 并行检查依赖版本，之后按声明顺序以解析后的坐标去重
+                runAll(checking, executor, resolution -> {
+                    resolution.dependency.checkVersion(resolution.repositories, baseDir);
+                    return resolution;
+                });
+                List<Resolution> level = new ArrayList<>();
+                for (Resolution resolution : checking) {
+                    if (visited.add(resolution.dependency.toString())) {
+                        level.add(resolution);
+                    }
+                }
+                // 下载当前层的依赖项
+                List<List<Resolution>> children = runAll(level, executor, this::resolve);
+                // 收集下一层的依赖项
+                List<Resolution> next = new ArrayList<>();
+                for (int i = 0; i < level.size(); i++) {
+                    downloaded.add(level.get(i).dependency);
+                    next.addAll(children.get(i));
+                }
+                pending = next;
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+        return downloaded;
+    }
+
+    /**
+     * 对一层依赖项执行任务，返回值与参数顺序一致
+     */
+    private <T> List<T> runAll(List<Resolution> level, @Nullable ExecutorService executor, Task<T> task) throws IOException {
+        List<T> results = new ArrayList<>();
+        // 单个依赖项无需提交到线程池
+        if (executor == null || level.size() <= 1) {
+            for (Resolution resolution : level) {
+                results.add(task.run(resolution));
+            }
+            return results;
+        }
+        List<Future<T>> futures = new ArrayList<>();
+        for (Resolution resolution : level) {
+            futures.add(executor.submit(() -> task.run(resolution)));
         }
+        for (Future<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof IOException) {
+                    throw (IOException) ex.getCause();
+                } else if (ex.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ex.getCause();
+                }
+                throw new IOException(ex.getCause());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException(ex);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 下载单个依赖项，返回它的传递依赖
+     */
+    private List<Resolution> resolve(Resolution resolution) throws IOException {
+        Dependency dependency = resolution.dependency;
         // 获取依赖项的 pom 文件和 jar 文件
         File pom = dependency.findFile(baseDir, "pom");
         File pom1 = new File(pom.getPath() + ".sha1");
         File jar = dependency.findFile(baseDir, "jar");
         File jar1 = new File(jar.getPath() + ".sha1");
-        Set<Dependency> downloaded = new HashSet<>();
-        downloaded.add(dependency);
         // 检查文件的完整性
-        if (PrimitiveIO.validation(pom, pom1) && PrimitiveIO.validation(jar, jar1)) {
-            // 加载依赖项
-            downloadedDependencies.add(dependency);
-            if (pom.exists()) {
-                downloaded.addAll(loadDependencyFromInputStream(pom.toURI().toURL().openStream()));
+        if (!downloadedDependencies.contains(dependency) && !(PrimitiveIO.validation(pom, pom1) && PrimitiveIO.validation(jar, jar1))) {
+            // 创建所在目录
+            pom.getParentFile().mkdirs();
+            // 下载文件
+            IOException e = null;
+            for (Repository repo : resolution.repositories) {
+                try {
+                    repo.downloadFile(dependency, pom);
+                    repo.downloadFile(dependency, jar);
+                    e = null;
+                    break;
+                } catch (Exception ex) {
+                    e = new IOException(String.format("Unable to find download for %s (%s)", dependency, repo.getUrl()), ex);
+                }
             }
-            return downloaded;
-        }
-        // 创建所在目录
-        pom.getParentFile().mkdirs();
-        // 下载文件
-        IOException e = null;
-        for (Repository repo : repositories) {
-            try {
-                repo.downloadFile(dependency, pom);
-                repo.downloadFile(dependency, jar);
-                e = null;
-                break;
-            } catch (Exception ex) {
-                e = new IOException(String.format("Unable to find download for %s (%s)", dependency, repo.getUrl()), ex);
+            // 如果存在异常，则抛出
+            if (e != null) {
+                throw e;
             }
         }
-        // 如果存在异常，则抛出
-        if (e != null) {
-            throw e;
+        downloadedDependencies.add(dependency);
+        // 读取传递依赖
+        if (!isTransitive || !pom.exists()) {
+            return Collections.emptyList();
         }
-        return downloaded;
-    }
-
-    /**
-     * 下载一个依赖项列表以及它们的所有依赖项，并将它们存储在 {@link DependencyDownloader#baseDir} 中。
-     */
-    public Set<Dependency> loadDependency(List<Repository> repositories, List<Dependency> dependencies) throws IOException {
-        createBaseDir();
-        Set<Dependency> downloaded = new HashSet<>();
+        List<Repository> repos = new ArrayList<>();
+        List<Dependency> dependencies;
+        try (InputStream inputStream = pom.toURI().toURL().openStream()) {
+            dependencies = readDependencies(parsePom(inputStream), repos, dependencyScopes);
+        }
+        List<Resolution> children = new ArrayList<>();
         for (Dependency dep : dependencies) {
-            downloaded.addAll(loadDependency(repositories, dep));
+            children.add(new Resolution(dep, repos));
         }
-        return downloaded;
+        return children;
     }
 
     /**
      * 下载 pom 中指定的所有依赖项
      */
     public Set<Dependency> loadDependencyFromPom(Document pom, DependencyScope... scopes) throws IOException {
+        List<Repository> repos = new ArrayList<>();
+        List<Dependency> dependencies = readDependencies(pom, repos, scopes);
+        return loadDependency(repos, dependencies);
+    }
+
+    /**
+     * 读取 pom 中指定的仓库及依赖项
+     *
+     * @param repos 用于写入仓库的列表
+     */
+    private List<Dependency> readDependencies(Document pom, List<Repository> repos, DependencyScope... scopes) throws IOException {
         List<Dependency> dependencies = new ArrayList<>();
         Set<DependencyScope> scopeSet = new HashSet<>(Arrays.asList(scopes));
         NodeList nodes = pom.getDocumentElement().getChildNodes();
-        List<Repository> repos = new ArrayList<>(repositories);
+        repos.addAll(repositories);
         if (repos.isEmpty()) {
             repos.add(new Repository());
         }
@@ -268,7 +363,7 @@ public class DependencyDownloader extends AbstractXmlParser {
                 }
             }
         }
-        return loadDependency(repos, dependencies);
+        return dependencies;
     }
 
     /**
@@ -282,14 +377,20 @@ public class DependencyDownloader extends AbstractXmlParser {
      * 下载 pom 中指定的所有依赖项
      */
     public Set<Dependency> loadDependencyFromInputStream(InputStream pom, DependencyScope... scopes) throws IOException {
+        return loadDependencyFromPom(parsePom(pom), scopes);
+    }
+
+    /**
+     * 解析 pom 文件
+     */
+    private Document parsePom(InputStream pom) throws IOException {
         try {
             DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
             factory.setFeature("http://xml.org/sax/features/validation", false);
             factory.setFeature("http://apache.org/xml/features/nonvalidating/load-dtd-grammar", false);
             factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
             DocumentBuilder builder = factory.newDocumentBuilder();
-            Document xml = builder.parse(pom);
-            return loadDependencyFromPom(xml, scopes);
+            return builder.parse(pom);
         } catch (ParserConfigurationException ex) {
             throw new IOException("Unable to load pom.xml parser", ex);
         } catch (SAXException ex) {
@@ -347,4 +448,35 @@ public class DependencyDownloader extends AbstractXmlParser {
     public void setTransitive(boolean transitive) {
         isTransitive = transitive;
     }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public DependencyDownloader setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * 对单个依赖项执行的任务
+     */
+    private interface Task<T> {
+
+        T run(Resolution resolution) throws IOException;
+    }
+
+    /**
+     * 待下载的依赖项及其可用的仓库
+     */
+    private static class Resolution {
+
+        private final Dependency dependency;
+        private final List<Repository> repositories;
+
+        private Resolution(Dependency dependency, List<Repository> repositories) {
+            this.dependency = dependency;
+            this.repositories = repositories;
+        }
+    }
 }
@@ -49,9 +49,10 @@ public class Repository extends AbstractXmlParser {
         URL url = dep.getURL(this, ext);
         // 提示信息
         PrimitiveIO.println("Downloading ... %s", url);
-        // 下载文件
-        PrimitiveIO.downloadFile(url, out);
-        PrimitiveIO.downloadFile(dep.getURL(this, ext + ".sha1"), new File(out.getPath() + ".sha1"));
+        // 下载文件，并在下载过程中完成校验
+        if (!PrimitiveIO.downloadFileWithValidation(url, out, new File(out.getPath() + ".sha1"))) {
+            throw new IOException("Checksum mismatch: " + url);
+        }
     }
 
     /**
@@ -2,6 +2,7 @@ package taboolib.common.platform
 
 import org.tabooproject.reflex.ClassMethod
 import taboolib.common.LifeCycle
+import taboolib.common.LifeCycleProfiler
 import taboolib.common.inject.ClassVisitor
 import java.util.function.Supplier
 
@@ -9,14 +10,27 @@ class AwakeFunction(private val lifeCycle: LifeCycle) : ClassVisitor(0) {
 
     override fun visit(method: ClassMethod, clazz: Class<*>, instance: Supplier<*>?) {
         if (method.isAnnotationPresent(Awake::class.java) && method.getAnnotation(Awake::class.java).enum<LifeCycle>("value", LifeCycle.ENABLE) == lifeCycle) {
-            if (instance != null) {
-                method.invoke(instance.get())
+            if (LifeCycleProfiler.ENABLED) {
+                LifeCycleProfiler.enter("${clazz.simpleName}.${method.name}()")
+                try {
+                    invoke(method, instance)
+                } finally {
+                    LifeCycleProfiler.exit()
+                }
             } else {
-                method.invokeStatic()
+                invoke(method, instance)
             }
         }
     }
 
+    private fun invoke(method: ClassMethod, instance: Supplier<*>?) {
+        if (instance != null) {
+            method.invoke(instance.get())
+        } else {
+            method.invokeStatic()
+        }
+    }
+
     override fun getLifeCycle(): LifeCycle {
         return lifeCycle
     }
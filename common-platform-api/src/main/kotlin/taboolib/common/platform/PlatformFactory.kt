@@ -33,8 +33,8 @@ object PlatformFactory {
             } catch (_: NoClassDefFoundError) {
             }
 
-            // 获取当前插件的所有类
-            val runningClasses = runningClassesWithoutLibrary
+            // 获取当前插件的所有类（存在类索引时只获取被标记的类）
+            val runningClasses = runningMarkedClassesWithoutLibrary
 
             // 开发环境
             if (PrimitiveSettings.IS_DEBUG_MODE) {
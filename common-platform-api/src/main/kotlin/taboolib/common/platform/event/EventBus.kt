@@ -12,11 +12,28 @@ import taboolib.common.platform.Ghost
 import taboolib.common.platform.Platform
 import taboolib.common.platform.function.*
 import taboolib.common.util.optional
+import java.util.concurrent.ConcurrentHashMap
 import java.util.function.Supplier
 
 @Awake
 class EventBus : ClassVisitor(-1) {
 
+    /** 并行注入时预先生成的调用器工厂，在 visit 中取出 */
+    private val factories = ConcurrentHashMap<ClassMethod, EventInvoker.Factory>()
+
+    override fun isParallel(): Boolean {
+        return true
+    }
+
+    /**
+     * 预先生成调用器工厂，实例的获取与监听器的注册仍在 visit 中按顺序进行
+     */
+    override fun prepare(method: ClassMethod, clazz: Class<*>) {
+        if (method.isAnnotationPresent(SubscribeEvent::class.java) && method.parameterTypes.size == 1 && method.parameterTypes[0] != Unknown::class.java) {
+            factories[method] = EventInvoker.prepare(clazz, method)
+        }
+    }
+
     @Suppress("UNCHECKED_CAST")
     override fun visit(method: ClassMethod, clazz: Class<*>, instance: Supplier<*>?) {
         if (method.isAnnotationPresent(SubscribeEvent::class.java) && method.parameter.size == 1) {
@@ -45,68 +62,62 @@ class EventBus : ClassVisitor(-1) {
             optional(anno) {
                 val obj = instance?.get()
                 val listenType = method.parameterTypes[0]
+                // 生成调用器
+                val invoker = (factories.remove(method) ?: EventInvoker.prepare(clazz, method)).bind(obj)
                 // 内部事件处理
                 if (InternalEvent::class.java.isAssignableFrom(listenType)) {
                     val priority = anno.enum<EventPriority>("priority", EventPriority.NORMAL)
                     val ignoreCancelled = anno.property("ignoreCancelled", false)
-                    InternalEventBus.listen(listenType as Class<InternalEvent>, priority.level, ignoreCancelled) { invoke(obj, method, it) }
+                    InternalEventBus.listen(listenType as Class<InternalEvent>, priority.level, ignoreCancelled) { invoker.invoke(it) }
                     return
                 }
                 // 判定运行平台
                 when (runningPlatform) {
-                    Platform.BUKKIT -> registerBukkit(method, optionalEvent, anno, obj)
-                    Platform.BUNGEE -> registerBungee(method, optionalEvent, anno, obj)
-                    Platform.VELOCITY -> registerVelocity(method, optionalEvent, anno, obj)
+                    Platform.BUKKIT -> registerBukkit(method, optionalEvent, anno, invoker)
+                    Platform.BUNGEE -> registerBungee(method, optionalEvent, anno, invoker)
+                    Platform.VELOCITY -> registerVelocity(method, optionalEvent, anno, invoker)
                     else -> {}
                 }
             }
         }
     }
 
-    private fun registerBukkit(method: ClassMethod, optionalBind: Class<*>?, event: ClassAnnotation, obj: Any?) {
+    private fun registerBukkit(method: ClassMethod, optionalBind: Class<*>?, event: ClassAnnotation, invoker: EventInvoker) {
         val priority = event.enum<EventPriority>("priority", EventPriority.NORMAL)
         val ignoreCancelled = event.property("ignoreCancelled", false)
         val listenType = method.parameterTypes[0]
         if (listenType == OptionalEvent::class.java) {
             if (optionalBind != null) {
-                registerBukkitListener(optionalBind, priority, ignoreCancelled) { invoke(obj, method, it, true) }
+                registerBukkitListener(optionalBind, priority, ignoreCancelled) { invoker.invoke(OptionalEvent(it)) }
             }
         } else {
-            registerBukkitListener(listenType, priority, ignoreCancelled) { invoke(obj, method, it) }
+            registerBukkitListener(listenType, priority, ignoreCancelled) { invoker.invoke(it) }
         }
     }
 
-    private fun registerBungee(method: ClassMethod, optionalBind: Class<*>?, event: ClassAnnotation, obj: Any?) {
+    private fun registerBungee(method: ClassMethod, optionalBind: Class<*>?, event: ClassAnnotation, invoker: EventInvoker) {
         val annoLevel = event.property("level", -1)
         val level = if (annoLevel != 0) annoLevel else event.enum<EventPriority>("priority", EventPriority.NORMAL).level
         val ignoreCancelled = event.property("ignoreCancelled", false)
         val listenType = method.parameterTypes[0]
         if (listenType == OptionalEvent::class.java) {
             if (optionalBind != null) {
-                registerBungeeListener(optionalBind, level, ignoreCancelled) { invoke(obj, method, it, true) }
+                registerBungeeListener(optionalBind, level, ignoreCancelled) { invoker.invoke(OptionalEvent(it)) }
             }
         } else {
-            registerBungeeListener(listenType, level, ignoreCancelled) { invoke(obj, method, it) }
+            registerBungeeListener(listenType, level, ignoreCancelled) { invoker.invoke(it) }
         }
     }
 
-    private fun registerVelocity(method: ClassMethod, optionalBind: Class<*>?, event: ClassAnnotation, obj: Any?) {
+    private fun registerVelocity(method: ClassMethod, optionalBind: Class<*>?, event: ClassAnnotation, invoker: EventInvoker) {
         val postOrder = event.enum<PostOrder>("postOrder", PostOrder.NORMAL)
         val listenType = method.parameterTypes[0]
         if (listenType == OptionalEvent::class.java) {
             if (optionalBind != null) {
-                registerVelocityListener(optionalBind, postOrder) { invoke(obj, method, it, true) }
+                registerVelocityListener(optionalBind, postOrder) { invoker.invoke(OptionalEvent(it)) }
             }
         } else {
-            registerVelocityListener(listenType, postOrder) { invoke(obj, method, it) }
-        }
-    }
-
-    private fun invoke(obj: Any?, method: ClassMethod, it: Any, optional: Boolean = false) {
-        if (obj != null) {
-            method.invoke(obj, if (optional) OptionalEvent(it) else it)
-        } else {
-            method.invokeStatic(if (optional) OptionalEvent(it) else it)
+            registerVelocityListener(listenType, postOrder) { invoker.invoke(it) }
         }
     }
 
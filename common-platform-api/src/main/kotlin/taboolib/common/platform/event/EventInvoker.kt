@@ -0,0 +1,110 @@
+package taboolib.common.platform.event
+
+import org.tabooproject.reflex.ClassMethod
+import java.lang.invoke.LambdaMetafactory
+import java.lang.invoke.MethodHandles
+import java.lang.invoke.MethodType
+import java.lang.reflect.Modifier
+
+/**
+ * TabooLib
+ * taboolib.common.platform.event.EventInvoker
+ *
+ * 事件处理函数的调用器
+ * 优先通过 LambdaMetafactory 生成直接调用，无法生成时（非公开方法、类加载器不可见等）退回到反射调用
+ *
+ * @author agent
+ * @since 2026/10/17
+ */
+fun interface EventInvoker {
+
+    fun invoke(event: Any)
+
+    companion object {
+
+        private val lookup = MethodHandles.lookup()
+
+        /**
+         * 为事件处理函数创建调用器
+         *
+         * @param clazz  函数所在的类
+         * @param method 函数
+         * @param obj    实例（静态函数为空）
+         */
+        fun create(clazz: Class<*>, method: ClassMethod, obj: Any?): EventInvoker {
+            return prepare(clazz, method).bind(obj)
+        }
+
+        /**
+         * 为事件处理函数创建调用器工厂，不需要实例，也不会初始化函数所在的类
+         * 适合在并行注入的预处理阶段提前完成调用点的生成
+         *
+         * @param clazz  函数所在的类
+         * @param method 函数
+         */
+        fun prepare(clazz: Class<*>, method: ClassMethod): Factory {
+            val factory = try {
+                generate(clazz, method)
+            } catch (_: Throwable) {
+                null
+            }
+            return factory ?: Factory { obj -> reflect(method, obj) }
+        }
+
+        private fun reflect(method: ClassMethod, obj: Any?): EventInvoker {
+            return EventInvoker {
+                if (obj != null) {
+                    method.invoke(obj, it)
+                } else {
+                    method.invokeStatic(it)
+                }
+            }
+        }
+
+        private fun generate(clazz: Class<*>, method: ClassMethod): Factory? {
+            val parameterType = method.parameterTypes[0]
+            val target = clazz.getDeclaredMethod(method.name, parameterType)
+            // 生成的调用器只能访问公开的类和方法
+            if (!Modifier.isPublic(clazz.modifiers) || !Modifier.isPublic(target.modifiers) || !Modifier.isPublic(parameterType.modifiers)) {
+                return null
+            }
+            // 生成的调用器由 EventInvoker 的类加载器解析，所在的类与事件类型必须对其可见，否则在首次调用时才会出错
+            if (!isVisible(clazz) || !isVisible(parameterType)) {
+                return null
+            }
+            val isStatic = Modifier.isStatic(target.modifiers)
+            val site = LambdaMetafactory.metafactory(
+                lookup,
+                "invoke",
+                if (isStatic) MethodType.methodType(EventInvoker::class.java) else MethodType.methodType(EventInvoker::class.java, clazz),
+                MethodType.methodType(Void.TYPE, Any::class.java),
+                lookup.unreflect(target),
+                MethodType.methodType(Void.TYPE, parameterType)
+            )
+            return Factory { obj ->
+                when {
+                    isStatic -> site.target.invokeWithArguments() as EventInvoker
+                    // 没有实例时无法直接调用，交由反射处理
+                    obj == null -> reflect(method, null)
+                    else -> site.target.invokeWithArguments(obj) as EventInvoker
+                }
+            }
+        }
+
+        private fun isVisible(cls: Class<*>): Boolean {
+            return try {
+                Class.forName(cls.name, false, EventInvoker::class.java.classLoader) === cls
+            } catch (_: Throwable) {
+                false
+            }
+        }
+    }
+
+    /**
+     * 调用器工厂，绑定实例后得到调用器
+     */
+    fun interface Factory {
+
+        fun bind(obj: Any?): EventInvoker
+    }
+}
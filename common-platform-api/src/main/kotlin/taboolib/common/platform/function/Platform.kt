@@ -1,7 +1,7 @@
 package taboolib.common.platform.function
 
 import taboolib.common.io.getInstance
-import taboolib.common.io.runningClasses
+import taboolib.common.io.findSubclasses
 import taboolib.common.platform.checkPlatform
 
 /**
@@ -9,5 +9,5 @@ import taboolib.common.platform.checkPlatform
  */
 @Suppress("UNCHECKED_CAST")
 fun <T> Class<T>.findImplementation(): T? {
-    return runningClasses.firstOrNull { isAssignableFrom(it) && it != this && checkPlatform(it) }?.getInstance(true)?.get() as? T
+    return findSubclasses(this).firstOrNull { checkPlatform(it) }?.getInstance(true)?.get() as? T
 }
\ No newline at end of file
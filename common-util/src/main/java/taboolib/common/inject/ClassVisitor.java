@@ -73,6 +73,37 @@ public abstract class ClassVisitor {
     public void visit(@NotNull ClassMethod method, @NotNull Class<?> clazz, @Nullable Supplier<?> instance) {
     }
 
+    /**
+     * 字段的预处理，在所有类被访问之前调用
+     * 仅在启用并行注入且 {@link #isParallel()} 返回 true 时调用，不调用时 visit 也必须能够独立完成
+     *
+     * @param field 字段
+     * @param clazz 类
+     */
+    public void prepare(@NotNull ClassField field, @NotNull Class<?> clazz) {
+    }
+
+    /**
+     * 方法的预处理，在所有类被访问之前调用
+     * 仅在启用并行注入且 {@link #isParallel()} 返回 true 时调用，不调用时 visit 也必须能够独立完成
+     *
+     * @param method 方法
+     * @param clazz  类
+     */
+    public void prepare(@NotNull ClassMethod method, @NotNull Class<?> clazz) {
+    }
+
+    /**
+     * 是否并行预处理
+     * 启用并行注入时，所有类的 prepare 会在独立的 ForkJoinPool 中同时进行，之后仍在注入线程中按顺序调用 visit
+     * prepare 只应进行与顺序无关的准备工作（例如读取文件、生成调用器），不应注册任何内容，也不应触发类初始化（例如访问实例）
+     *
+     * @return 是否并行预处理
+     */
+    public boolean isParallel() {
+        return false;
+    }
+
     /**
      * 获取优先级
      *
@@ -4,20 +4,24 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.tabooproject.reflex.ClassField;
 import org.tabooproject.reflex.ClassMethod;
-import org.tabooproject.reflex.ReflexClass;
 import taboolib.common.Inject;
 import taboolib.common.LifeCycle;
+import taboolib.common.LifeCycleProfiler;
+import taboolib.common.PrimitiveIO;
+import taboolib.common.PrimitiveSettings;
 import taboolib.common.TabooLib;
 import taboolib.common.io.ProjectIdKt;
 import taboolib.common.io.ProjectScannerKt;
-import taboolib.common.platform.Ghost;
 import taboolib.common.platform.Platform;
 import taboolib.common.platform.PlatformSide;
-import taboolib.common.platform.SkipTo;
 import taboolib.common.reflect.AnnotationKt;
 import taboolib.common.util.JavaAnnotation;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Supplier;
 
 /**
@@ -32,6 +36,14 @@ public class VisitorHandler {
 
     private static final NavigableMap<Byte, VisitorGroup> propertyMap = Collections.synchronizedNavigableMap(new TreeMap<>());
     private static final Set<Class<?>> classes = new HashSet<>();
+    private static final Map<Class<?>, VisitorTarget> targets = new ConcurrentHashMap<>();
+    private static final int targetCacheSize = Integer.parseInt(PrimitiveSettings.RUNTIME_PROPERTIES.getProperty("inject-cache-size", "8192"));
+    private static volatile boolean targetCacheReleased = false;
+    private static final Map<LifeCycle, Map<ClassVisitor, LongAdder>> timings = new ConcurrentHashMap<>();
+    // 仅在开发者模式或启动分析器开启时统计耗时
+    private static final boolean isTimingEnabled = PrimitiveSettings.IS_DEBUG_MODE || LifeCycleProfiler.ENABLED;
+    // 并行注入使用独立线程池，避免占用（或被阻塞于）公共 ForkJoinPool
+    private static volatile ForkJoinPool parallelPool;
 
     static void init() {
         for (LifeCycle lifeCycle : LifeCycle.values()) {
@@ -43,6 +55,8 @@ public class VisitorHandler {
             // 注册任务
             TabooLib.registerLifeCycleTask(lifeCycle, priority, () -> VisitorHandler.injectAll(lifeCycle));
         }
+        // ACTIVE 之后不再有批量注入（DISABLE 仅执行一次），释放类结构缓存
+        TabooLib.registerLifeCycleTask(LifeCycle.ACTIVE, 1, VisitorHandler::releaseTargets);
     }
 
     /**
@@ -68,14 +82,28 @@ public class VisitorHandler {
 
     /**
      * 根据生命周期对所有类进行依赖注入
+     * 不同优先级的注入组依次执行，启用并行注入时，同一注入组内声明并行预处理的 ClassVisitor 会先并行预处理所有类
      *
      * @param lifeCycle 生命周期
      */
     public static void injectAll(@NotNull LifeCycle lifeCycle) {
+        Set<Class<?>> classes = getClasses();
         for (Map.Entry<Byte, VisitorGroup> entry : propertyMap.entrySet()) {
-            for (Class<?> clazz : getClasses()) {
-                inject(clazz, entry.getValue(), lifeCycle);
+            VisitorGroup group = entry.getValue();
+            List<ClassVisitor> visitors = group.get(lifeCycle);
+            if (visitors.isEmpty()) {
+                continue;
+            }
+            if (PrimitiveSettings.IS_PARALLEL_INJECT) {
+                prepareParallel(classes, visitors, lifeCycle);
             }
+            for (Class<?> clazz : classes) {
+                inject(clazz, group, visitors, lifeCycle);
+            }
+        }
+        // 开发者模式下打印耗时
+        if (PrimitiveSettings.IS_DEBUG_MODE) {
+            printTimings(lifeCycle);
         }
     }
 
@@ -87,85 +115,212 @@ public class VisitorHandler {
      * @param lifeCycle 生命周期
      */
     public static void inject(@NotNull Class<?> clazz, @NotNull VisitorGroup group, @Nullable LifeCycle lifeCycle) {
-        // 跳过注入
-        if (JavaAnnotation.hasAnnotation(clazz, Ghost.class)) {
+        inject(clazz, group, group.get(lifeCycle), lifeCycle);
+    }
+
+    /**
+     * 在独立的 ForkJoinPool 中并行预处理所有类，并等待完成
+     * 类结构的解析同时在此进行，之后的访问（包括类的初始化）仍在注入线程中按顺序执行
+     */
+    private static void prepareParallel(Set<Class<?>> classes, List<ClassVisitor> visitors, LifeCycle lifeCycle) {
+        List<ClassVisitor> parallel = new ArrayList<>();
+        for (ClassVisitor visitor : visitors) {
+            if (visitor.isParallel()) {
+                parallel.add(visitor);
+            }
+        }
+        if (parallel.isEmpty()) {
+            return;
+        }
+        getParallelPool().submit(() -> classes.parallelStream().forEach(clazz -> prepare(clazz, parallel, lifeCycle))).join();
+    }
+
+    private static void prepare(Class<?> clazz, List<ClassVisitor> visitors, LifeCycle lifeCycle) {
+        VisitorTarget target = getTarget(clazz);
+        if (target.isSkipped(lifeCycle) || !target.resolve()) {
             return;
         }
-        // 检查 SkipTo
-        if (lifeCycle != null && JavaAnnotation.hasAnnotation(clazz, SkipTo.class)) {
-            int skip = clazz.getAnnotation(SkipTo.class).value().ordinal();
-            if (skip > lifeCycle.ordinal()) {
-                return;
+        for (ClassVisitor visitor : visitors) {
+            // 预处理失败时由 visit 重新处理并报告
+            for (ClassField field : target.getFields()) {
+                try {
+                    visitor.prepare(field, clazz);
+                } catch (Throwable ignored) {
+                }
+            }
+            for (ClassMethod method : target.getMethods()) {
+                try {
+                    visitor.prepare(method, clazz);
+                } catch (Throwable ignored) {
+                }
+            }
+        }
+    }
+
+    private static ForkJoinPool getParallelPool() {
+        if (parallelPool == null) {
+            synchronized (VisitorHandler.class) {
+                if (parallelPool == null) {
+                    parallelPool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), pool -> {
+                        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                        thread.setName("TabooLib-Inject-" + thread.getPoolIndex());
+                        thread.setDaemon(true);
+                        return thread;
+                    }, null, false);
+                }
             }
         }
-        // 获取实例
-        Supplier<?> instance = ProjectScannerKt.getInstance(clazz, false);
-        // 获取结构
-        ReflexClass rc;
-        try {
-            rc = ReflexClass.Companion.of(clazz, true);
-        } catch (Throwable ex) {
-            new ClassVisitException(clazz, ex).printStackTrace();
+        return parallelPool;
+    }
+
+    private static void inject(Class<?> clazz, VisitorGroup group, List<ClassVisitor> visitors, LifeCycle lifeCycle) {
+        if (visitors.isEmpty()) {
+            return;
+        }
+        VisitorTarget target = getTarget(clazz);
+        // 跳过注入
+        if (target.isSkipped(lifeCycle) || !target.resolve()) {
             return;
         }
+        Supplier<?> instance = target.getInstance();
         // 依赖注入
-        visitStart(clazz, group, lifeCycle, rc, instance);
-        visitField(clazz, group, lifeCycle, rc, instance);
-        visitMethod(clazz, group, lifeCycle, rc, instance);
-        visitEnd(clazz, group, lifeCycle, rc, instance);
+        Map<ClassVisitor, LongAdder> times = isTimingEnabled && lifeCycle != null ? timings.computeIfAbsent(lifeCycle, i -> new ConcurrentHashMap<>()) : null;
+        visitStart(clazz, group, lifeCycle, visitors, instance, times);
+        visitField(clazz, group, lifeCycle, visitors, target.getFields(), instance, times);
+        visitMethod(clazz, group, lifeCycle, visitors, target.getMethods(), instance, times);
+        visitEnd(clazz, group, lifeCycle, visitors, instance, times);
     }
 
-    private static void visitStart(Class<?> clazz, VisitorGroup group, LifeCycle lifeCycle, ReflexClass reflexClass, Supplier<?> instance) {
-        for (ClassVisitor visitor : group.get(lifeCycle)) {
+    private static void visitStart(Class<?> clazz, VisitorGroup group, LifeCycle lifeCycle, List<ClassVisitor> visitors, Supplier<?> instance, Map<ClassVisitor, LongAdder> times) {
+        for (ClassVisitor visitor : visitors) {
+            long time = begin(visitor, clazz);
             try {
                 visitor.visitStart(clazz, instance);
             } catch (Throwable ex) {
                 new ClassVisitException(clazz, group, lifeCycle, ex).printStackTrace();
             }
+            end(times, visitor, time);
         }
     }
 
-    private static void visitField(Class<?> clazz, VisitorGroup group, LifeCycle lifeCycle, ReflexClass reflexClass, Supplier<?> instance) {
-        for (ClassVisitor visitor : group.get(lifeCycle)) {
-            for (ClassField field : reflexClass.getStructure().getFields()) {
+    private static void visitField(Class<?> clazz, VisitorGroup group, LifeCycle lifeCycle, List<ClassVisitor> visitors, List<ClassField> fields, Supplier<?> instance, Map<ClassVisitor, LongAdder> times) {
+        for (ClassVisitor visitor : visitors) {
+            long time = begin(visitor, clazz);
+            for (ClassField field : fields) {
                 try {
                     visitor.visit(field, clazz, instance);
                 } catch (Throwable ex) {
                     new ClassVisitException(clazz, group, lifeCycle, field, ex).printStackTrace();
                 }
             }
+            end(times, visitor, time);
         }
     }
 
-    private static void visitMethod(Class<?> clazz, VisitorGroup group, LifeCycle lifeCycle, ReflexClass reflexClass, Supplier<?> instance) {
-        for (ClassVisitor visitor : group.get(lifeCycle)) {
-            for (ClassMethod method : reflexClass.getStructure().getMethods()) {
+    private static void visitMethod(Class<?> clazz, VisitorGroup group, LifeCycle lifeCycle, List<ClassVisitor> visitors, List<ClassMethod> methods, Supplier<?> instance, Map<ClassVisitor, LongAdder> times) {
+        for (ClassVisitor visitor : visitors) {
+            long time = begin(visitor, clazz);
+            for (ClassMethod method : methods) {
                 try {
                     visitor.visit(method, clazz, instance);
                 } catch (Throwable ex) {
                     new ClassVisitException(clazz, group, lifeCycle, method, ex).printStackTrace();
                 }
             }
+            end(times, visitor, time);
         }
     }
 
-    private static void visitEnd(Class<?> clazz, VisitorGroup group, LifeCycle lifeCycle, ReflexClass reflexClass, Supplier<?> instance) {
-        for (ClassVisitor visitor : group.get(lifeCycle)) {
+    private static void visitEnd(Class<?> clazz, VisitorGroup group, LifeCycle lifeCycle, List<ClassVisitor> visitors, Supplier<?> instance, Map<ClassVisitor, LongAdder> times) {
+        for (ClassVisitor visitor : visitors) {
+            long time = begin(visitor, clazz);
             try {
                 visitor.visitEnd(clazz, instance);
             } catch (Throwable ex) {
                 new ClassVisitException(clazz, group, lifeCycle, ex).printStackTrace();
             }
+            end(times, visitor, time);
+        }
+    }
+
+    /**
+     * 获取类的分析结果
+     * 缓存已满或已被释放时不再缓存新的结果
+     */
+    private static VisitorTarget getTarget(Class<?> clazz) {
+        VisitorTarget target = targets.get(clazz);
+        if (target != null) {
+            return target;
+        }
+        target = new VisitorTarget(clazz);
+        if (!targetCacheReleased && targets.size() < targetCacheSize) {
+            VisitorTarget previous = targets.putIfAbsent(clazz, target);
+            if (previous != null) {
+                return previous;
+            }
+        }
+        return target;
+    }
+
+    /**
+     * 释放类结构缓存
+     */
+    public static void releaseTargets() {
+        targetCacheReleased = true;
+        targets.clear();
+    }
+
+    private static long begin(ClassVisitor visitor, Class<?> clazz) {
+        if (LifeCycleProfiler.ENABLED) {
+            LifeCycleProfiler.enter(visitor.getClass().getSimpleName());
+            LifeCycleProfiler.enter(clazz.getName());
+        }
+        return isTimingEnabled ? System.nanoTime() : 0L;
+    }
+
+    private static void end(Map<ClassVisitor, LongAdder> times, ClassVisitor visitor, long start) {
+        if (times != null) {
+            times.computeIfAbsent(visitor, i -> new LongAdder()).add(System.nanoTime() - start);
+        }
+        if (LifeCycleProfiler.ENABLED) {
+            LifeCycleProfiler.exit();
+            LifeCycleProfiler.exit();
+        }
+    }
+
+    /**
+     * 获取各生命周期下每个 ClassVisitor 的累计耗时（纳秒）
+     */
+    public static Map<LifeCycle, Map<ClassVisitor, Long>> getTimings() {
+        Map<LifeCycle, Map<ClassVisitor, Long>> map = new EnumMap<>(LifeCycle.class);
+        timings.forEach((lifeCycle, visitors) -> {
+            Map<ClassVisitor, Long> times = new LinkedHashMap<>();
+            visitors.entrySet().stream()
+                    .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+                    .forEach(it -> times.put(it.getKey(), it.getValue().sum()));
+            map.put(lifeCycle, times);
+        });
+        return map;
+    }
+
+    private static void printTimings(LifeCycle lifeCycle) {
+        Map<ClassVisitor, Long> times = getTimings().get(lifeCycle);
+        if (times == null || times.isEmpty()) {
+            return;
         }
+        long total = times.values().stream().mapToLong(Long::longValue).sum();
+        PrimitiveIO.println("Inject (%s): %.2fms", lifeCycle, total / 1_000_000.0);
+        times.forEach((visitor, time) -> PrimitiveIO.println(" = %s: %.2fms", visitor, time / 1_000_000.0));
     }
 
     /**
      * 获取能够被 ClassVisitor 访问到的所有类
+     * 存在类索引时，只有被标记的类会被访问
      */
     public static Set<Class<?>> getClasses() {
         if (classes.isEmpty()) {
             // 获取所有类
-            for (Map.Entry<String, Class<?>> it : ProjectScannerKt.getRunningClassMap().entrySet()) {
+            for (Map.Entry<String, Class<?>> it : ProjectScannerKt.getRunningMarkedClassMap().entrySet()) {
                 // 只扫自己
                 if (it.getKey().startsWith(ProjectIdKt.getGroupId())) {
                     // 排除第三方库
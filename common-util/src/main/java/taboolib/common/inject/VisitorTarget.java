@@ -0,0 +1,109 @@
+package taboolib.common.inject;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.tabooproject.reflex.ClassField;
+import org.tabooproject.reflex.ClassMethod;
+import org.tabooproject.reflex.ReflexClass;
+import taboolib.common.LifeCycle;
+import taboolib.common.io.ProjectScannerKt;
+import taboolib.common.platform.Ghost;
+import taboolib.common.platform.SkipTo;
+import taboolib.common.util.JavaAnnotation;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * TabooLib
+ * taboolib.common.inject.VisitorTarget
+ * <p>
+ * 依赖注入时被访问的类的分析结果，在各生命周期之间共享
+ * 注解在创建时读取，实例与结构在首次未被跳过的访问时才会解析
+ *
+ * @author agent
+ * @since 2026/10/17
+ */
+@SuppressWarnings("CallToPrintStackTrace")
+public class VisitorTarget {
+
+    private final Class<?> clazz;
+    private final boolean ghost;
+    private final LifeCycle skipTo;
+    private volatile boolean resolved;
+    private Supplier<?> instance;
+    private List<ClassField> fields;
+    private List<ClassMethod> methods;
+
+    VisitorTarget(Class<?> clazz) {
+        this.clazz = clazz;
+        this.ghost = JavaAnnotation.hasAnnotation(clazz, Ghost.class);
+        SkipTo annotation = JavaAnnotation.getAnnotationIfPresent(clazz, SkipTo.class);
+        this.skipTo = annotation != null ? annotation.value() : null;
+    }
+
+    /**
+     * 解析实例与结构
+     *
+     * @return 是否解析成功
+     */
+    boolean resolve() {
+        if (resolved) {
+            return true;
+        }
+        synchronized (this) {
+            if (resolved) {
+                return true;
+            }
+            // 获取实例
+            Supplier<?> instance = ProjectScannerKt.getInstance(clazz, false);
+            // 获取结构
+            ReflexClass rc;
+            try {
+                rc = ReflexClass.Companion.of(clazz, true);
+            } catch (Throwable ex) {
+                new ClassVisitException(clazz, ex).printStackTrace();
+                return false;
+            }
+            this.instance = instance;
+            this.fields = rc.getStructure().getFields();
+            this.methods = rc.getStructure().getMethods();
+            this.resolved = true;
+            return true;
+        }
+    }
+
+    /**
+     * 是否在给定生命周期下跳过注入
+     *
+     * @param lifeCycle 生命周期
+     */
+    public boolean isSkipped(@Nullable LifeCycle lifeCycle) {
+        // 跳过注入
+        if (ghost) {
+            return true;
+        }
+        // 检查 SkipTo
+        return lifeCycle != null && skipTo != null && skipTo.ordinal() > lifeCycle.ordinal();
+    }
+
+    @NotNull
+    public Class<?> getTargetClass() {
+        return clazz;
+    }
+
+    @Nullable
+    public Supplier<?> getInstance() {
+        return instance;
+    }
+
+    @NotNull
+    public List<ClassField> getFields() {
+        return fields;
+    }
+
+    @NotNull
+    public List<ClassMethod> getMethods() {
+        return methods;
+    }
+}
@@ -48,15 +48,19 @@ interface InternalEventBus {
             /** 已注册的监听器 */
             val registeredListeners = ConcurrentHashMap<Class<*>, MutableMap<Int, MutableList<RegisteredListener>>>()
 
+            /** 按优先级排序的监听器快照，只在注册或注销监听器时重建 */
+            val snapshots = ConcurrentHashMap<Class<*>, Array<RegisteredListener>>()
+
             override fun isListening(cls: Class<*>): Boolean {
-                return registeredListeners.containsKey(cls) && registeredListeners[cls]!!.any { it.value.isNotEmpty() }
+                return snapshots.containsKey(cls)
             }
 
             override fun <T : InternalEvent> call(event: T) {
-                registeredListeners[event.javaClass]?.entries?.flatMap { it.value }?.forEach { listener ->
+                val listeners = snapshots[event.javaClass] ?: return
+                for (listener in listeners) {
                     // 如果事件可取消 & 事件已被取消 & 监听器忽略取消事件
                     if (event is CancelableInternalEvent && event.isCancelled && listener.ignoreCancelled) {
-                        return@forEach
+                        continue
                     }
                     // 运行函数
                     listener.invoke(event)
@@ -66,15 +70,31 @@ interface InternalEventBus {
             @Suppress("UNCHECKED_CAST")
             override fun <T : InternalEvent> listen(cls: Class<T>, priority: Int, ignoreCancelled: Boolean, listener: (event: T) -> Unit): InternalListener {
                 val registeredListener = RegisteredListener(cls, priority, ignoreCancelled, listener as (Any) -> Unit)
-                registeredListeners.getOrPut(cls) { ConcurrentSkipListMap() }.getOrPut(priority) { CopyOnWriteArrayList() }.add(registeredListener)
+                synchronized(registeredListeners) {
+                    registeredListeners.getOrPut(cls) { ConcurrentSkipListMap() }.getOrPut(priority) { CopyOnWriteArrayList() }.add(registeredListener)
+                    updateSnapshot(cls)
+                }
                 return registeredListener
             }
 
+            /** 重建监听器快照 */
+            fun updateSnapshot(cls: Class<*>) {
+                val listeners = registeredListeners[cls]?.values?.flatten()
+                if (listeners.isNullOrEmpty()) {
+                    snapshots.remove(cls)
+                } else {
+                    snapshots[cls] = listeners.toTypedArray()
+                }
+            }
+
             /** 已注册的监听器 */
             inner class RegisteredListener(val cls: Class<*>, val priority: Int, val ignoreCancelled: Boolean, val listener: (event: Any) -> Unit) : InternalListener {
 
                 override fun cancel() {
-                    registeredListeners[cls]?.get(priority)?.remove(this)
+                    synchronized(registeredListeners) {
+                        registeredListeners[cls]?.get(priority)?.remove(this)
+                        updateSnapshot(cls)
+                    }
                 }
 
                 fun invoke(event: Any) {
@@ -0,0 +1,325 @@
+package taboolib.common.io
+
+import taboolib.common.PrimitiveIO
+import taboolib.common.PrimitiveSettings
+import java.io.*
+import java.util.*
+import java.util.concurrent.ConcurrentHashMap
+import java.util.jar.JarFile
+
+/**
+ * TabooLib
+ * taboolib.common.io.ClassIndex
+ *
+ * 构建时生成的类索引，位于 META-INF/taboolib/classes.idx，首行为格式版本，之后每行记录一个类：
+ *
+ * ```
+ * # format 2
+ * com.example.plugin.Foo taboolib.common.platform.Awake taboolib.common.platform.event.SubscribeEvent
+ * com.example.plugin.Bar ^taboolib.common.platform.Plugin
+ * com.example.plugin.Baz
+ * ```
+ *
+ * 类名之后以空格分隔的内容为标记，均为完整类名，包括：
+ * 1. 类本身及其字段、方法上的注解
+ * 2. 以 ^ 开头的父类与接口，包括间接继承或实现的类型
+ *
+ * 只有声明于项目组内（包括重定向后的 TabooLib）的类型会被记录为标记，空行及其他以 # 开头的行会被忽略。
+ * 没有任何标记的类不会被依赖注入访问，也不会在启动时被加载。
+ * 索引由 [generate] 生成，格式版本不符的索引会被忽略。
+ *
+ * @author agent
+ * @since 2026/10/17
+ */
+class ClassIndex(val entries: Map<String, Set<String>>) {
+
+    /** 所有类名 */
+    val names: Set<String>
+        get() = entries.keys
+
+    /** 获取类的所有标记 */
+    fun getTags(name: String): Set<String> {
+        return entries[name] ?: emptySet()
+    }
+
+    /** 是否带有任何标记 */
+    fun isMarked(name: String): Boolean {
+        return getTags(name).isNotEmpty()
+    }
+
+    /** 是否带有指定标记 */
+    fun hasTag(name: String, tag: String): Boolean {
+        return getTags(name).contains(tag)
+    }
+
+    /**
+     * 写入类索引
+     */
+    fun write(output: OutputStream) {
+        val writer = output.bufferedWriter(Charsets.UTF_8)
+        writer.write(HEADER)
+        writer.newLine()
+        entries.forEach { (name, tags) ->
+            writer.write((listOf(name) + tags.sorted()).joinToString(" "))
+            writer.newLine()
+        }
+        writer.flush()
+    }
+
+    companion object {
+
+        /** 索引文件位置 */
+        const val PATH = "META-INF/taboolib/classes.idx"
+
+        /** 格式版本 */
+        const val HEADER = "# format 2"
+
+        /**
+         * 从文件（Jar 或目录）中读取类索引
+         * 若索引不存在、格式版本不符或被禁用，则返回 null
+         */
+        fun read(file: File): ClassIndex? {
+            if (!PrimitiveSettings.IS_CLASS_INDEX_ENABLED) {
+                return null
+            }
+            return try {
+                when {
+                    file.isFile -> JarFile(file).use { jar -> jar.getJarEntry(PATH)?.let { parse(jar.getInputStream(it)) } }
+                    file.isDirectory -> File(file, PATH).takeIf { it.exists() }?.inputStream()?.let { parse(it) }
+                    else -> null
+                }
+            } catch (ex: Throwable) {
+                PrimitiveIO.error("Failed to read class index from %s: %s", file.name, ex)
+                null
+            }
+        }
+
+        /**
+         * 解析类索引，格式版本不符时返回 null
+         */
+        fun parse(input: InputStream): ClassIndex? {
+            val entries = LinkedHashMap<String, Set<String>>()
+            input.bufferedReader(Charsets.UTF_8).use { reader ->
+                if (reader.readLine()?.trim() != HEADER) {
+                    return null
+                }
+                reader.forEachLine { line ->
+                    val trim = line.trim()
+                    if (trim.isEmpty() || trim.startsWith('#')) {
+                        return@forEachLine
+                    }
+                    val args = trim.split(' ').filter { it.isNotEmpty() }
+                    entries[args[0]] = if (args.size > 1) args.subList(1, args.size).toHashSet() else emptySet()
+                }
+            }
+            return ClassIndex(entries)
+        }
+
+        /**
+         * 读取文件（Jar 或目录）中的所有类，生成类索引
+         * 不在文件中的父类通过 [classLoader] 查找其继承关系（不会初始化），找不到时只记录直接继承的类型
+         *
+         * @param groups 项目组（包名前缀），只有其中的类型会被记录为标记
+         */
+        fun generate(file: File, groups: List<String>, classLoader: ClassLoader = ClassIndex::class.java.classLoader): ClassIndex {
+            val headers = LinkedHashMap<String, ClassHeader>()
+            fun add(path: String, bytes: ByteArray) {
+                if (path.endsWith(".class") && !path.endsWith("module-info.class") && !path.startsWith("META-INF/")) {
+                    val header = ClassHeader.read(bytes)
+                    headers[header.name] = header
+                }
+            }
+            if (file.isFile) {
+                JarFile(file).use { jar -> jar.entries().asSequence().forEach { add(it.name, jar.getInputStream(it).readBytes()) } }
+            } else {
+                file.walkTopDown().filter { it.isFile }.forEach { add(it.relativeTo(file).invariantSeparatorsPath, it.readBytes()) }
+            }
+            fun inGroup(name: String) = groups.any { name.startsWith(it) }
+            // 父类与接口的闭包
+            val closures = HashMap<String, Set<String>>()
+            fun closure(name: String): Set<String> {
+                closures[name]?.let { return it }
+                val direct = headers[name]?.supertypes ?: try {
+                    val cls = Class.forName(name, false, classLoader)
+                    listOfNotNull(cls.superclass?.name) + cls.interfaces.map { it.name }
+                } catch (ex: Throwable) {
+                    emptyList()
+                }
+                val result = LinkedHashSet<String>()
+                direct.filter { it != "java.lang.Object" }.forEach {
+                    result += it
+                    result += closure(it)
+                }
+                closures[name] = result
+                return result
+            }
+            val entries = LinkedHashMap<String, Set<String>>()
+            headers.keys.sorted().forEach { name ->
+                val tags = HashSet<String>()
+                headers[name]!!.annotations.filterTo(tags) { inGroup(it) }
+                closure(name).forEach { if (inGroup(it)) tags += "^$it" }
+                entries[name] = tags
+            }
+            return ClassIndex(entries)
+        }
+    }
+
+    /**
+     * 类文件中与索引有关的部分：类名、直接父类与接口、类及其字段、方法上的注解
+     */
+    class ClassHeader(val name: String, val supertypes: List<String>, val annotations: Set<String>) {
+
+        companion object {
+
+            fun read(bytes: ByteArray): ClassHeader {
+                val input = DataInputStream(ByteArrayInputStream(bytes))
+                if (input.readInt() != 0xCAFEBABE.toInt()) {
+                    throw IOException("Not a class file")
+                }
+                input.readUnsignedShort()
+                input.readUnsignedShort()
+                // 常量池
+                val count = input.readUnsignedShort()
+                val utf8 = arrayOfNulls<String>(count)
+                val classes = IntArray(count)
+                var i = 1
+                while (i < count) {
+                    when (val tag = input.readUnsignedByte()) {
+                        1 -> utf8[i] = input.readUTF()
+                        7 -> classes[i] = input.readUnsignedShort()
+                        8, 16, 19, 20 -> input.readUnsignedShort()
+                        3, 4, 9, 10, 11, 12, 17, 18 -> input.readInt()
+                        15 -> {
+                            input.readUnsignedByte()
+                            input.readUnsignedShort()
+                        }
+                        5, 6 -> {
+                            input.readLong()
+                            i++
+                        }
+                        else -> throw IOException("Unknown constant pool tag $tag")
+                    }
+                    i++
+                }
+                fun className(index: Int) = utf8[classes[index]]!!.replace('/', '.')
+                input.readUnsignedShort()
+                val name = className(input.readUnsignedShort())
+                val supertypes = ArrayList<String>()
+                val superIndex = input.readUnsignedShort()
+                if (superIndex != 0) {
+                    supertypes += className(superIndex)
+                }
+                repeat(input.readUnsignedShort()) { supertypes += className(input.readUnsignedShort()) }
+                val annotations = LinkedHashSet<String>()
+                fun readAnnotation(data: DataInputStream): String {
+                    val type = utf8[data.readUnsignedShort()]!!
+                    repeat(data.readUnsignedShort()) {
+                        data.readUnsignedShort()
+                        skipElementValue(data) { readAnnotation(it) }
+                    }
+                    // Lcom/example/Foo; -> com.example.Foo
+                    return type.substring(1, type.length - 1).replace('/', '.')
+                }
+                fun readAttributes() {
+                    repeat(input.readUnsignedShort()) {
+                        val attribute = utf8[input.readUnsignedShort()]
+                        val data = ByteArray(input.readInt())
+                        input.readFully(data)
+                        if (attribute == "RuntimeVisibleAnnotations" || attribute == "RuntimeInvisibleAnnotations") {
+                            val stream = DataInputStream(ByteArrayInputStream(data))
+                            repeat(stream.readUnsignedShort()) { annotations += readAnnotation(stream) }
+                        }
+                    }
+                }
+                // 字段与方法
+                repeat(2) {
+                    repeat(input.readUnsignedShort()) {
+                        input.readUnsignedShort()
+                        input.readUnsignedShort()
+                        input.readUnsignedShort()
+                        readAttributes()
+                    }
+                }
+                readAttributes()
+                return ClassHeader(name, supertypes, annotations)
+            }
+
+            private fun skipElementValue(data: DataInputStream, annotation: (DataInputStream) -> Unit) {
+                when (data.readUnsignedByte().toChar()) {
+                    'e' -> {
+                        data.readUnsignedShort()
+                        data.readUnsignedShort()
+                    }
+                    '@' -> annotation(data)
+                    '[' -> repeat(data.readUnsignedShort()) { skipElementValue(data, annotation) }
+                    else -> data.readUnsignedShort()
+                }
+            }
+        }
+    }
+}
+
+/**
+ * 基于类索引的延迟加载类表
+ * 单独查询时只加载被查询的类，遍历时才会加载索引中的所有类
+ */
+class IndexedClassMap(val index: ClassIndex, val classLoader: ClassLoader) : kotlin.collections.AbstractMap<String, Class<*>>() {
+
+    /** 已尝试加载的类（加载失败的类记为空） */
+    private val loaded = ConcurrentHashMap<String, Optional<Class<*>>>()
+
+    /**
+     * 索引中所有能被加载的类
+     * 遍历时按索引顺序逐个加载，获取数量时需要加载所有类
+     */
+    override val entries: Set<Map.Entry<String, Class<*>>> = object : kotlin.collections.AbstractSet<Map.Entry<String, Class<*>>>() {
+
+        override val size: Int
+            get() = index.names.count { load(it) != null }
+
+        override fun iterator(): Iterator<Map.Entry<String, Class<*>>> {
+            return index.names.asSequence()
+                .mapNotNull { name -> load(name)?.let { java.util.AbstractMap.SimpleImmutableEntry<String, Class<*>>(name, it) } }
+                .iterator()
+        }
+    }
+
+    override fun get(key: String): Class<*>? {
+        return if (index.entries.containsKey(key)) load(key) else null
+    }
+
+    override fun containsKey(key: String): Boolean {
+        return get(key) != null
+    }
+
+    /** 带有任何标记的类 */
+    private val marked by lazy { filterIndex { index.isMarked(it) } }
+
+    /**
+     * 获取带有任何标记的类
+     */
+    fun getMarkedClasses(): Map<String, Class<*>> {
+        return marked
+    }
+
+    /**
+     * 获取带有指定标记的类
+     */
+    fun getTaggedClasses(tag: String): Map<String, Class<*>> {
+        return filterIndex { index.hasTag(it, tag) }
+    }
+
+    private fun filterIndex(filter: (String) -> Boolean): Map<String, Class<*>> {
+        val map = LinkedHashMap<String, Class<*>>()
+        index.names.forEach { name ->
+            if (filter(name)) {
+                load(name)?.let { map[name] = it }
+            }
+        }
+        return map
+    }
+
+    private fun load(name: String): Class<*>? {
+        return loaded.computeIfAbsent(name) { Optional.ofNullable(runCatching { Class.forName(name, false, classLoader) }.getOrNull()) }.orElse(null)
+    }
+}
@@ -0,0 +1,59 @@
+package taboolib.common.io
+
+import java.io.File
+import java.util.jar.JarFile
+
+/**
+ * TabooLib
+ * taboolib.common.io.JarResourceMap
+ *
+ * 延迟读取的资源表，创建时只记录 Jar 中的资源名称，内容在被查询时才会从 Jar 中读取且不会被保留
+ *
+ * @author agent
+ * @since 2026/10/17
+ */
+class JarResourceMap(val file: File) : AbstractMap<String, ByteArray>() {
+
+    /** 所有资源名称 */
+    private val names: Set<String> = JarFile(file).use { jar ->
+        jar.entries().asSequence().filter { !it.name.endsWith(".class") && !it.isDirectory }.mapTo(LinkedHashSet()) { it.name }
+    }
+
+    /** 在首次读取时打开 */
+    private val jar by lazy { JarFile(file) }
+
+    override val keys: Set<String>
+        get() = names
+
+    override val size: Int
+        get() = names.size
+
+    override val entries: Set<Map.Entry<String, ByteArray>>
+        get() = object : AbstractSet<Map.Entry<String, ByteArray>>() {
+
+            override val size: Int
+                get() = names.size
+
+            override fun iterator(): Iterator<Map.Entry<String, ByteArray>> {
+                return names.asSequence().map { name -> Entry(name) }.iterator()
+            }
+        }
+
+    override fun containsKey(key: String): Boolean {
+        return names.contains(key)
+    }
+
+    override fun get(key: String): ByteArray? {
+        if (!names.contains(key)) {
+            return null
+        }
+        val entry = jar.getJarEntry(key) ?: return null
+        return jar.getInputStream(entry).use { it.readBytes() }
+    }
+
+    private inner class Entry(override val key: String) : Map.Entry<String, ByteArray> {
+
+        override val value: ByteArray
+            get() = get(key)!!
+    }
+}
@@ -0,0 +1,91 @@
+package taboolib.common.io
+
+/**
+ * TabooLib
+ * taboolib.common.io.MergedMap
+ *
+ * 由多个表按顺序叠加而成的只读视图，后加入的表会覆盖先加入的表中的同名内容
+ * 视图本身不复制任何内容，每次访问时都会反映各个表的最新状态
+ * 表的列表只在首次访问及调用 [invalidate] 后重新获取，增减表时需要调用 [invalidate]
+ *
+ * @author agent
+ * @since 2026/10/17
+ */
+class MergedMap<V>(private val supplier: () -> List<Map<String, V>>) : AbstractMap<String, V>() {
+
+    @Volatile
+    private var cachedLayers: List<Map<String, V>>? = null
+
+    private val layers: List<Map<String, V>>
+        get() = cachedLayers ?: supplier().also { cachedLayers = it }
+
+    /**
+     * 使表的列表失效，下次访问时重新获取
+     */
+    fun invalidate() {
+        cachedLayers = null
+    }
+
+    override val entries: Set<Map.Entry<String, V>>
+        get() = object : AbstractSet<Map.Entry<String, V>>() {
+
+            override val size: Int
+                get() = owners(layers).size
+
+            override fun iterator(): Iterator<Map.Entry<String, V>> {
+                val layers = layers
+                // 只有一个表时不存在覆盖
+                if (layers.size == 1) {
+                    return layers[0].entries.iterator()
+                }
+                val owners = owners(layers)
+                return sequence {
+                    layers.forEachIndexed { index, layer ->
+                        for (entry in layer.entries) {
+                            // 跳过被之后的表覆盖的内容
+                            if (owners[entry.key] == index) {
+                                yield(entry)
+                            }
+                        }
+                    }
+                }.iterator()
+            }
+        }
+
+    override fun get(key: String): V? {
+        val layers = layers
+        for (i in layers.indices.reversed()) {
+            val value = layers[i][key]
+            if (value != null) {
+                return value
+            }
+        }
+        return null
+    }
+
+    /**
+     * 交由各个表自行判断，不会读取内容（例如 JarResourceMap 中的文件）
+     */
+    override fun containsKey(key: String): Boolean {
+        return layers.any { it.containsKey(key) }
+    }
+
+    override fun isEmpty(): Boolean {
+        return layers.all { it.isEmpty() }
+    }
+
+    /**
+     * 获取每个键最终所在的表
+     * 只读取键，不会加载 [IndexedClassMap] 中的类
+     */
+    private fun owners(layers: List<Map<String, V>>): Map<String, Int> {
+        val owners = HashMap<String, Int>()
+        layers.forEachIndexed { index, layer ->
+            val keys = if (layer is IndexedClassMap) layer.index.names else layer.keys
+            for (key in keys) {
+                owners[key] = index
+            }
+        }
+        return owners
+    }
+}
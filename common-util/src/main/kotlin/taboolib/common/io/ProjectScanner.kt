@@ -17,6 +17,7 @@ import java.net.URISyntaxException
 import java.net.URL
 import java.util.*
 import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
 import java.util.function.Supplier
 import java.util.jar.JarFile
 
@@ -31,24 +32,31 @@ val isDevelopmentMode by lazy(LazyThreadSafetyMode.NONE) { PrimitiveSettings.IS_
 val runningClassMapInJar by lazy(LazyThreadSafetyMode.NONE) { TabooLib::class.java.protectionDomain.codeSource.location.getClasses() }
 
 /**
- * 当前插件的所有类
+ * 当前插件的所有类（只读视图，不会复制）
  */
-val runningClassMap: Map<String, Class<*>>
-    get() {
-        val map = LinkedHashMap<String, Class<*>>()
-        map.putAll(runningClassMapInJar)
-        map.putAll(extraLoadedClasses)
-        return map
-    }
+val runningClassMap: Map<String, Class<*>> = MergedMap { listOf(runningClassMapInJar) + extraIndexedClasses + listOf(extraLoadedClasses) }
 
 /**
  * 当前插件的所有类（排除第三方库）
  */
 val runningClassMapWithoutLibrary: Map<String, Class<*>>
-    get() = runningClassMap.filterKeys { !it.contains(".library.") && !it.contains(".libs.") && it.startsWith(groupId) }
+    get() = runningClassMap.filterKeys { isNotLibrary(it) }
+
+/**
+ * 当前插件中被类索引标记的类（只读视图，不会复制）
+ * 不存在类索引的部分将返回其所有类
+ */
+val runningMarkedClassMap: Map<String, Class<*>> = MergedMap { listOf(runningClassMapInJar.marked()) + extraIndexedClasses.map { it.getMarkedClasses() } + listOf(extraLoadedClasses) }
+
+/**
+ * 当前插件中被类索引标记的类的集合（排除第三方库）
+ */
+val runningMarkedClassesWithoutLibrary: List<Class<*>>
+    get() = LinkedList(runningMarkedClassMap.filterKeys { isNotLibrary(it) }.values)
 
 /**
  * 当前插件的所有类的集合
+ * 存在类索引时会加载索引中的所有类，只需要特定类时应当使用 [runningMarkedClassMap] 或 [findSubclasses]
  */
 val runningClasses: List<Class<*>>
     get() = LinkedList(runningClassMap.values)
@@ -77,32 +85,46 @@ val runningExactClasses: List<Class<*>>
 val runningResourcesInJar by lazy(LazyThreadSafetyMode.NONE) { TabooLib::class.java.protectionDomain.codeSource.location.getResources() }
 
 /**
- * 当前插件的所有资源文件
+ * 当前插件的所有资源文件（只读视图，不会复制）
  */
-val runningResources: Map<String, ByteArray>
-    get() {
-        val map = LinkedHashMap<String, ByteArray>()
-        map.putAll(runningResourcesInJar)
-        map.putAll(extraLoadedResources)
-        return map
-    }
+val runningResources: Map<String, ByteArray> = MergedMap { listOf(runningResourcesInJar) + extraResourceMaps + listOf(extraLoadedResources) }
 
 /**
  * 由 ClassAppender 加载的类
  */
 var extraLoadedClasses = ConcurrentHashMap<String, Class<*>>()
+    set(value) {
+        field = value
+        invalidateMergedMaps()
+    }
 
 /**
  * 由 ClassAppender 加载的资源文件
  */
 var extraLoadedResources = ConcurrentHashMap<String, ByteArray>()
+    set(value) {
+        field = value
+        invalidateMergedMaps()
+    }
+
+/**
+ * 由 ClassAppender 加载的资源表（延迟读取）
+ */
+val extraResourceMaps = CopyOnWriteArrayList<JarResourceMap>()
+
+/**
+ * 由 ClassAppender 加载且带有类索引的类
+ */
+val extraIndexedClasses = CopyOnWriteArrayList<IndexedClassMap>()
 
 /**
  * 获取 Plugin 实现
  */
 fun findPluginImpl(): Plugin? {
     // 从 Jar 中获取类
-    val cls = runningClassMapInJar.values.firstOrNull { Plugin::class.java != it && Plugin::class.java.isAssignableFrom(it) && checkPlatform(it) }
+    // 存在类索引时只检查继承 Plugin 的类
+    val classes = (runningClassMapInJar as? IndexedClassMap)?.getTaggedClasses("^${Plugin::class.java.name}")?.values ?: runningClassMapInJar.values
+    val cls = classes.firstOrNull { Plugin::class.java != it && Plugin::class.java.isAssignableFrom(it) && checkPlatform(it) }
     return if (cls != null) {
         try {
             val declaredField = cls.getDeclaredField("INSTANCE")
@@ -114,6 +136,17 @@ fun findPluginImpl(): Plugin? {
     } else null
 }
 
+/**
+ * 获取当前插件中继承或实现 [type] 的类
+ * 存在类索引时只加载索引中继承 [type] 的类（包括间接继承），否则依次检查所有类
+ */
+fun findSubclasses(type: Class<*>): Sequence<Class<*>> {
+    val layers = listOf(runningClassMapInJar) + extraIndexedClasses + listOf(extraLoadedClasses)
+    return layers.asSequence().flatMap { map ->
+        if (map is IndexedClassMap) map.getTaggedClasses("^${type.name}").values.asSequence() else map.values.asSequence()
+    }.filter { it != type && type.isAssignableFrom(it) }.distinct()
+}
+
 /**
  * 判断平台实现
  */
@@ -180,14 +213,13 @@ fun <T> Class<T>.getInstance(newInstance: Boolean = false): Supplier<T>? {
  * 获取 URL 下的所有类
  */
 fun URL.getClasses(classLoader: ClassLoader = ClassAppender.getClassLoader()): Map<String, Class<*>> {
-    val classes = ConcurrentHashMap<String, Class<*>>()
-    val srcFile = try {
-        File(toURI())
-    } catch (ex: IllegalArgumentException) {
-        File((openConnection() as JarURLConnection).jarFileURL.toURI())
-    } catch (ex: URISyntaxException) {
-        File(path)
+    val srcFile = toSourceFile()
+    // 优先使用构建时生成的类索引
+    val index = ClassIndex.read(srcFile)
+    if (index != null) {
+        return IndexedClassMap(index, classLoader)
     }
+    val classes = ConcurrentHashMap<String, Class<*>>()
     // 是文件
     if (srcFile.isFile) {
         JarFile(srcFile).use { jar ->
@@ -209,21 +241,31 @@ fun URL.getClasses(classLoader: ClassLoader = ClassAppender.getClassLoader()): M
 
 /**
  * 获取 URL 下的所有文件
+ * 文件内容在被查询时才会读取
  */
 fun URL.getResources(): Map<String, ByteArray> {
-    val resources = LinkedHashMap<String, ByteArray>()
-    val srcFile = try {
+    return JarResourceMap(toSourceFile())
+}
+
+/**
+ * 获取 URL 对应的文件
+ */
+private fun URL.toSourceFile(): File {
+    return try {
         File(toURI())
     } catch (ex: IllegalArgumentException) {
         File((openConnection() as JarURLConnection).jarFileURL.toURI())
     } catch (ex: URISyntaxException) {
         File(path)
     }
-    val jarFile = JarFile(srcFile)
-    jarFile.stream().filter { !it.name.endsWith(".class") && !it.isDirectory }.forEach {
-        resources[it.name] = jarFile.getInputStream(jarFile.getJarEntry(it.name)).readBytes()
-    }
-    return resources
+}
+
+private fun isNotLibrary(name: String): Boolean {
+    return !name.contains(".library.") && !name.contains(".libs.") && name.startsWith(groupId)
+}
+
+private fun Map<String, Class<*>>.marked(): Map<String, Class<*>> {
+    return if (this is IndexedClassMap) getMarkedClasses() else this
 }
 
 private fun classOf(name: String): Class<*> {
@@ -248,8 +290,22 @@ private fun init() {
     ClassAppender.registerCallback { loader, file, isExternal ->
         // 只有内部库会被收录
         if (!isExternal) {
-            extraLoadedClasses += file.toURI().toURL().getClasses(loader)
-            extraLoadedResources += file.toURI().toURL().getResources()
+            // 带有类索引的文件延迟加载
+            when (val classes = file.toURI().toURL().getClasses(loader)) {
+                is IndexedClassMap -> extraIndexedClasses += classes
+                else -> extraLoadedClasses += classes
+            }
+            extraResourceMaps += JarResourceMap(file)
+            invalidateMergedMaps()
         }
     }
+}
+
+/**
+ * 表的列表发生变化后，使各个只读视图重新获取
+ */
+private fun invalidateMergedMaps() {
+    (runningClassMap as MergedMap<*>).invalidate()
+    (runningMarkedClassMap as MergedMap<*>).invalidate()
+    (runningResources as MergedMap<*>).invalidate()
 }
\ No newline at end of file
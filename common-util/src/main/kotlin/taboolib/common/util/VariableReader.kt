@@ -12,59 +12,171 @@ class VariableReader(val start: String = "{{", val end: String = "}}") {
     data class Part(val text: String, val isVariable: Boolean)
 
     /**
-     * 替换嵌套变量
+     * 模板片段
      */
-    fun replaceNested(source: String, transfer: String.() -> String): String {
-        var str = source
-        while (true) {
-            val endPos = indexOf(str, end)
-            if (endPos == -1) {
-                break
+    sealed class Segment {
+
+        /** 文本 */
+        class Literal(val text: String) : Segment()
+
+        /** 变量，其内容可能包含嵌套变量 */
+        class Variable(val segments: List<Segment>) : Segment()
+    }
+
+    /**
+     * 预编译的模板，不可变，可以被缓存并反复渲染
+     */
+    class Template(val segments: List<Segment>) {
+
+        /** 是否不包含任何变量 */
+        val isConstant = segments.all { it is Segment.Literal }
+
+        /**
+         * 渲染模板，嵌套变量由内向外依次替换
+         */
+        fun render(transfer: String.() -> String): String {
+            if (isConstant) {
+                return (segments.firstOrNull() as? Segment.Literal)?.text ?: ""
             }
-            val startPos = lastIndexOf(str.substring(0, endPos), start)
-            if (startPos == -1) {
-                break
+            return render(StringBuilder(), transfer).toString()
+        }
+
+        /**
+         * 将模板渲染到给定的 StringBuilder 中
+         */
+        fun render(builder: StringBuilder, transfer: String.() -> String): StringBuilder {
+            render(builder, segments, transfer)
+            return builder
+        }
+
+        private fun render(builder: StringBuilder, segments: List<Segment>, transfer: String.() -> String) {
+            for (segment in segments) {
+                when (segment) {
+                    is Segment.Literal -> builder.append(segment.text)
+                    is Segment.Variable -> {
+                        // 先在末尾渲染变量内容，取出后再替换为结果
+                        val mark = builder.length
+                        render(builder, segment.segments, transfer)
+                        val body = builder.substring(mark)
+                        builder.setLength(mark)
+                        builder.append(transfer(body))
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 编译模板
+     */
+    fun compile(source: String): Template {
+        val root = ArrayList<Segment>()
+        // 未闭合的变量
+        val stack = ArrayList<ArrayList<Segment>>()
+        // 尚未写入的文本起始位置
+        var literal = 0
+        var i = 0
+        while (i < source.length) {
+            if (source.startsWith(end, i) && !isEscaped(source, i)) {
+                // 多余的结束符号，之后的内容均视为文本
+                if (stack.isEmpty()) {
+                    break
+                }
+                val segments = stack.removeAt(stack.size - 1)
+                addLiteral(segments, source, literal, i)
+                (stack.lastOrNull() ?: root) += Segment.Variable(segments)
+                i += end.length
+                literal = i
+            } else if (source.startsWith(start, i) && !isEscaped(source, i) && !source.startsWith(start, i + 1)) {
+                // 连续的起始符号以最后一个为准
+                addLiteral(stack.lastOrNull() ?: root, source, literal, i)
+                stack += ArrayList<Segment>()
+                i += start.length
+                literal = i
+            } else {
+                i++
             }
-            val before = str.substring(0, startPos)
-            val after = str.substring(endPos + end.length)
-            val body = transfer(format(str.substring(startPos + start.length, endPos)))
-            str = before + body + after
         }
-        return format(str)
+        addLiteral(stack.lastOrNull() ?: root, source, literal, source.length)
+        // 未闭合的变量视为文本
+        while (stack.isNotEmpty()) {
+            val segments = stack.removeAt(stack.size - 1)
+            val parent = stack.lastOrNull() ?: root
+            parent += Segment.Literal(start)
+            parent += segments
+        }
+        return Template(merge(root))
+    }
+
+    /**
+     * 替换嵌套变量
+     */
+    fun replaceNested(source: String, transfer: String.() -> String): String {
+        return compile(source).render(transfer)
     }
 
     fun readToFlatten(source: String): List<Part> {
-        var str = source
         val parts = ArrayList<Part>()
+        var pos = 0
         while (true) {
-            val startPos = indexOf(str, start)
-            val endPos = indexOf(str, end, startPos)
+            val startPos = indexOf(source, start, pos)
+            val endPos = indexOf(source, end, startPos)
             if (startPos == -1 || endPos == -1) {
                 break
             }
-            if (startPos > 0) {
-                parts += Part(format(str.substring(0, startPos)), false)
+            if (startPos > pos) {
+                parts += Part(format(source.substring(pos, startPos)), false)
             }
-            parts += Part(format(str.substring(startPos + start.length, endPos)), true)
-            str = str.substring(endPos + end.length)
+            parts += Part(format(source.substring(startPos + start.length, endPos)), true)
+            pos = endPos + end.length
         }
-        if (str.isNotEmpty()) {
-            parts += Part(format(str), false)
+        if (pos < source.length) {
+            parts += Part(format(source.substring(pos)), false)
         }
         return parts
     }
 
+    private fun addLiteral(segments: MutableList<Segment>, source: String, from: Int, to: Int) {
+        if (from < to) {
+            segments += Segment.Literal(format(source.substring(from, to)))
+        }
+    }
+
+    /**
+     * 合并相邻的文本
+     */
+    private fun merge(segments: List<Segment>): List<Segment> {
+        val merged = ArrayList<Segment>(segments.size)
+        for (segment in segments) {
+            val last = merged.lastOrNull()
+            when {
+                segment is Segment.Variable -> merged += Segment.Variable(merge(segment.segments))
+                last is Segment.Literal && segment is Segment.Literal -> merged[merged.size - 1] = Segment.Literal(last.text + segment.text)
+                else -> merged += segment
+            }
+        }
+        return merged
+    }
+
+    private fun isEscaped(source: String, index: Int): Boolean {
+        return index > 0 && source[index - 1] == '\\'
+    }
+
     private fun format(str: String): String {
+        // 不存在转义符号
+        if (str.indexOf('\\') == -1) {
+            return str
+        }
         // 不使用 replace 将 "\" + start 和 "\" + end 替换为 start" 和 end
-        return buildString {
+        return buildString(str.length) {
             var i = 0
             while (i < str.length) {
                 if (str[i] == '\\') {
                     // 完整匹配 start 和 end
-                    if (i + start.length < str.length && str.substring(i + 1, i + start.length + 1) == start) {
+                    if (str.startsWith(start, i + 1)) {
                         append(start)
                         i += start.length + 1
-                    } else if (i + end.length < str.length && str.substring(i + 1, i + end.length + 1) == end) {
+                    } else if (str.startsWith(end, i + 1)) {
                         append(end)
                         i += end.length + 1
                     } else {
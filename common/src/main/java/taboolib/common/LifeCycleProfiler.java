@@ -0,0 +1,211 @@
+package taboolib.common;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TabooLib
+ * taboolib.common.LifeCycleProfiler
+ * <p>
+ * 启动分析器，记录各生命周期、ClassVisitor、类及 @Awake 函数的耗时与内存分配
+ * 通过 env.properties 中的 enable-startup-profiler 开启，关闭时所有记录函数都会立即返回
+ * <p>
+ * 在 ACTIVE 生命周期结束后输出：
+ * 1. 控制台：按总耗时排序的前 N 项（startup-profiler-top）
+ * 2. cache/taboolib/profile/[插件名].collapsed：按耗时（微秒）统计的折叠栈，可直接用于生成火焰图
+ * 3. cache/taboolib/profile/[插件名].alloc.collapsed：按内存分配（字节）统计的折叠栈
+ *
+ * @author agent
+ * @since 2026/10/17
+ */
+@SuppressWarnings("CallToPrintStackTrace")
+public class LifeCycleProfiler {
+
+    /**
+     * 是否启用
+     */
+    public static final boolean ENABLED = PrimitiveSettings.IS_STARTUP_PROFILER;
+
+    private static final ThreadMXBean threadBean = ENABLED ? ManagementFactory.getThreadMXBean() : null;
+    private static final boolean allocationSupported = isAllocationSupported();
+
+    /**
+     * 各线程的调用栈
+     */
+    private static final ThreadLocal<Deque<Frame>> stacks = ThreadLocal.withInitial(ArrayDeque::new);
+
+    /**
+     * 折叠栈 -> 自身耗时与分配
+     */
+    private static final Map<String, Sample> collapsed = new ConcurrentHashMap<>();
+
+    /**
+     * 帧名称 -> 总耗时与分配
+     */
+    private static final Map<String, Sample> frames = new ConcurrentHashMap<>();
+
+    /**
+     * 当前生命周期，作为其他线程中调用栈的根
+     */
+    private static volatile String root = null;
+
+    /**
+     * 进入生命周期
+     */
+    public static void enterLifeCycle(@NotNull LifeCycle lifeCycle) {
+        if (ENABLED) {
+            root = lifeCycle.name();
+            stacks.get().push(new Frame(lifeCycle.name(), lifeCycle.name()));
+        }
+    }
+
+    /**
+     * 进入一帧
+     *
+     * @param name 名称
+     */
+    public static void enter(@NotNull String name) {
+        if (ENABLED) {
+            Deque<Frame> stack = stacks.get();
+            Frame parent = stack.peek();
+            String frame = name.replace(';', ',');
+            String path;
+            if (parent != null) {
+                path = parent.path + ";" + frame;
+            } else if (root != null) {
+                path = root + ";" + frame;
+            } else {
+                path = frame;
+            }
+            stack.push(new Frame(frame, path));
+        }
+    }
+
+    /**
+     * 退出当前帧
+     */
+    public static void exit() {
+        if (ENABLED) {
+            Deque<Frame> stack = stacks.get();
+            Frame frame = stack.poll();
+            if (frame == null) {
+                return;
+            }
+            long time = System.nanoTime() - frame.time;
+            long bytes = getAllocatedBytes() - frame.bytes;
+            // 自身耗时
+            collapsed.computeIfAbsent(frame.path, i -> new Sample()).add(time - frame.childTime, bytes - frame.childBytes);
+            // 总耗时
+            frames.computeIfAbsent(frame.name, i -> new Sample()).add(time, bytes);
+            Frame parent = stack.peek();
+            if (parent != null) {
+                parent.childTime += time;
+                parent.childBytes += bytes;
+            }
+        }
+    }
+
+    /**
+     * 输出结果
+     */
+    public static void dump() {
+        if (!ENABLED) {
+            return;
+        }
+        // 控制台
+        List<Map.Entry<String, Sample>> sorted = new ArrayList<>(frames.entrySet());
+        sorted.sort((a, b) -> Long.compare(b.getValue().time.sum(), a.getValue().time.sum()));
+        PrimitiveIO.println("Startup profile (top %s):", PrimitiveSettings.STARTUP_PROFILER_TOP);
+        for (int i = 0; i < Math.min(PrimitiveSettings.STARTUP_PROFILER_TOP, sorted.size()); i++) {
+            Map.Entry<String, Sample> entry = sorted.get(i);
+            Sample sample = entry.getValue();
+            PrimitiveIO.println(" = %8.2fms %10.2fKB x%-5s %s", sample.time.sum() / 1_000_000.0, sample.bytes.sum() / 1024.0, sample.count.sum(), entry.getKey());
+        }
+        // 火焰图
+        File directory = new File("cache/taboolib/profile");
+        directory.mkdirs();
+        String name = PrimitiveIO.getRunningFileName().replace(".jar", "");
+        try {
+            write(new File(directory, name + ".collapsed"), false);
+            if (allocationSupported) {
+                write(new File(directory, name + ".alloc.collapsed"), true);
+            }
+            PrimitiveIO.println("Startup profile saved to %s", directory.getPath());
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * 获取所有帧的总耗时（纳秒）
+     */
+    public static Map<String, Long> getTimings() {
+        Map<String, Long> map = new LinkedHashMap<>();
+        frames.forEach((name, sample) -> map.put(name, sample.time.sum()));
+        return map;
+    }
+
+    private static void write(File file, boolean allocation) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))) {
+            collapsed.forEach((path, sample) -> {
+                long value = allocation ? sample.bytes.sum() : sample.time.sum() / 1000;
+                if (value > 0) {
+                    writer.println(path + " " + value);
+                }
+            });
+        }
+    }
+
+    private static long getAllocatedBytes() {
+        if (allocationSupported) {
+            return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private static boolean isAllocationSupported() {
+        try {
+            return threadBean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemoryEnabled();
+        } catch (Throwable ex) {
+            return false;
+        }
+    }
+
+    private static class Frame {
+
+        final String name;
+        final String path;
+        final long time = System.nanoTime();
+        final long bytes = getAllocatedBytes();
+        long childTime;
+        long childBytes;
+
+        Frame(String name, String path) {
+            this.name = name;
+            this.path = path;
+        }
+    }
+
+    private static class Sample {
+
+        final LongAdder time = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final LongAdder count = new LongAdder();
+
+        void add(long time, long bytes) {
+            this.time.add(time);
+            this.bytes.add(bytes);
+            this.count.increment();
+        }
+    }
+}
@@ -7,7 +7,9 @@ import java.net.URL;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Objects;
@@ -108,13 +110,7 @@ public class PrimitiveIO {
             while ((total = inputStream.read(buffer)) != -1) {
                 digest.update(buffer, 0, total);
             }
-            byte[] hashBytes = digest.digest();
-            // Convert byte array to hex string
-            StringBuilder result = new StringBuilder(hashBytes.length * 2);
-            for (byte b : hashBytes) {
-                result.append(String.format("%02x", b));
-            }
-            return result.toString();
+            return toHex(digest.digest());
         } catch (IOException ex) {
             ex.printStackTrace();
         }
@@ -128,12 +124,7 @@ public class PrimitiveIO {
         MessageDigest digest = DIGEST_THREAD_LOCAL.get();
         digest.reset(); // Ensure the MessageDigest is reset before each use
         digest.update(data.getBytes(StandardCharsets.UTF_8));
-        byte[] hashBytes = digest.digest();
-        StringBuilder result = new StringBuilder(hashBytes.length * 2);
-        for (byte b : hashBytes) {
-            result.append(String.format("%02x", b));
-        }
-        return result.toString();
+        return toHex(digest.digest());
     }
 
     /**
@@ -206,6 +197,77 @@ public class PrimitiveIO {
         ins.close();
     }
 
+    /**
+     * 下载文件，并在写入的同时计算 sha-1 哈希
+     *
+     * @param url 地址
+     * @param out 目标文件
+     * @return 文件哈希
+     */
+    @NotNull
+    public static String downloadFileWithHash(URL url, File out) throws IOException {
+        out.getParentFile().mkdirs();
+        MessageDigest digest = DIGEST_THREAD_LOCAL.get();
+        digest.reset();
+        try (InputStream ins = url.openStream(); OutputStream outs = Files.newOutputStream(out.toPath())) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int len;
+            while ((len = ins.read(buffer)) > 0) {
+                digest.update(buffer, 0, len);
+                outs.write(buffer, 0, len);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * 下载文件及其 sha-1 文件（url + ".sha1"），并在下载过程中完成校验
+     * 文件先写入同目录下的临时文件，校验通过后才移动到目标位置，因此中断的下载不会留下不完整的目标文件
+     * 校验失败时两个文件都会被删除
+     *
+     * @param url      地址
+     * @param out      目标文件
+     * @param hashFile 哈希文件
+     * @return 是否校验通过
+     */
+    public static boolean downloadFileWithValidation(URL url, File out, File hashFile) throws IOException {
+        out.getParentFile().mkdirs();
+        File tempOut = File.createTempFile(out.getName(), ".tmp", out.getParentFile());
+        File tempHash = File.createTempFile(hashFile.getName(), ".tmp", hashFile.getParentFile());
+        try {
+            String hash = downloadFileWithHash(url, tempOut);
+            downloadFile(new URL(url + ".sha1"), tempHash);
+            if (readFile(tempHash).startsWith(hash)) {
+                // 先移动文件本体，再移动哈希文件，哈希文件存在即代表文件完整
+                moveFile(tempOut, out);
+                moveFile(tempHash, hashFile);
+                return true;
+            }
+            out.delete();
+            hashFile.delete();
+            return false;
+        } finally {
+            tempOut.delete();
+            tempHash.delete();
+        }
+    }
+
+    private static void moveFile(File from, File to) throws IOException {
+        try {
+            Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder result = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            result.append(String.format("%02x", b));
+        }
+        return result.toString();
+    }
+
     public static String getRunningFileName() {
         return runningFileName;
     }
@@ -1,19 +1,18 @@
 package taboolib.common;
 
-import me.lucko.jarrelocator.JarRelocator;
-import me.lucko.jarrelocator.Relocation;
 import taboolib.common.classloader.Precondition;
 
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Method;
 import java.net.URL;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Properties;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
-import java.util.stream.Collectors;
 
 import static taboolib.common.PrimitiveSettings.*;
 
@@ -36,17 +35,20 @@ public class PrimitiveLoader {
 
     public static final String JR_GROUP = "!me.lucko.jarrelocator".substring(1);
 
-    private static String projectPackageName;
+    /**
+     * 已被预先下载的文件
+     */
+    private static final Set<File> prefetched = ConcurrentHashMap.newKeySet();
 
     static {
         Precondition.onlyIsolated(PrimitiveLoader.class);
-        try {
-            projectPackageName = "taboolib".substring(0, "taboolib".length() - 9);
-        } catch (Throwable ex) {
-            projectPackageName = "taboolib";
-        }
     }
 
+    /**
+     * 反射模块版本
+     */
+    public static final String REFLEX_VERSION = "1.0.23";
+
     /**
      * 基础依赖（隔离加载）
      */
@@ -84,6 +86,8 @@ public class PrimitiveLoader {
             // 提示
             PrimitiveIO.println("[TabooLib] \"%s\" is running in development mode.", PrimitiveIO.getRunningFileName());
         }
+        // 并行下载所有缺失的模块
+        prefetch();
         // 加载基础依赖
         for (String[] i : DEPS) {
             load(REPO_CENTRAL, i[0], i[1], i[2], true, true, new String[][]{});
@@ -93,8 +97,8 @@ public class PrimitiveLoader {
             load(REPO_CENTRAL, i[0], i[1], i[2], IS_ISOLATED_MODE, true, rule());
         }
         // 加载反射模块
-        load(REPO_TABOOLIB, TABOOPROJECT_GROUP + ".reflex", "reflex", "1.0.23", IS_ISOLATED_MODE, true, rule());
-        load(REPO_TABOOLIB, TABOOPROJECT_GROUP + ".reflex", "analyser", "1.0.23", IS_ISOLATED_MODE, true, rule());
+        load(REPO_TABOOLIB, TABOOPROJECT_GROUP + ".reflex", "reflex", REFLEX_VERSION, IS_ISOLATED_MODE, true, rule());
+        load(REPO_TABOOLIB, TABOOPROJECT_GROUP + ".reflex", "analyser", REFLEX_VERSION, IS_ISOLATED_MODE, true, rule());
         // 加载完整模块
         loadAll();
     }
@@ -111,34 +115,94 @@ public class PrimitiveLoader {
      */
     static boolean load(String repo, String group, String name, String version, boolean isIsolated, boolean isExternal, String[][] relocate) throws Throwable {
         if (name.isEmpty()) return false;
-        boolean downloaded = false;
-        File envFile = new File(getLibraryFile(), String.format("%s/%s/%s/%s-%s.jar", group.replace(".", "/"), name, version, name, version));
-        File shaFile = new File(getLibraryFile(), String.format("%s/%s/%s/%s-%s.jar.sha1", group.replace(".", "/"), name, version, name, version));
-        // 检查文件有效性
-        if (!PrimitiveIO.validation(envFile, shaFile) || (IS_FORCE_DOWNLOAD_IN_DEV_MODE && IS_DEV_MODE && group.equals(TABOOLIB_GROUP))) {
-            try {
-                PrimitiveIO.println("Downloading library %s:%s:%s", group, name, version);
-                // 获取地址
-                String url = String.format("%s/%s/%s/%s/%s-%s.jar", repo, group.replace(".", "/"), name, version, name, version);
-                // 下载资源
-                PrimitiveIO.downloadFile(new URL(url), envFile);
-                PrimitiveIO.downloadFile(new URL(url + ".sha1"), shaFile);
-                downloaded = true;
-            } catch (IOException e) {
-                e.printStackTrace();
-                return false;
-            }
-            // 检查合法性
-            if (!PrimitiveIO.validation(envFile, shaFile)) {
-                PrimitiveIO.println("[TabooLib] Failed to download " + name + "-" + version + ".jar");
+        File envFile = getLibraryFile(group, name, version, "jar");
+        File shaFile = getLibraryFile(group, name, version, "jar.sha1");
+        // 检查文件有效性（已被预先下载的文件无需检查）
+        if (!prefetched.contains(envFile) && isDownloadRequired(group, envFile, shaFile)) {
+            if (!download(repo, group, name, version, envFile, shaFile)) {
                 return false;
             }
         }
         // 加载
-        loadFile(envFile, isIsolated, isExternal, relocate, downloaded);
+        loadFile(envFile, isIsolated, isExternal, relocate);
         return true;
     }
 
+    /**
+     * 并行下载启动时需要的所有模块，下载数量受 {@link PrimitiveSettings#DOWNLOAD_PARALLELISM} 限制
+     * 下载失败的模块会在加载时重新尝试
+     */
+    static void prefetch() throws InterruptedException {
+        List<String[]> modules = new ArrayList<>();
+        for (String[] i : DEPS) {
+            modules.add(new String[]{REPO_CENTRAL, i[0], i[1], i[2]});
+        }
+        modules.add(new String[]{REPO_TABOOLIB, TABOOPROJECT_GROUP + ".reflex", "reflex", REFLEX_VERSION});
+        modules.add(new String[]{REPO_TABOOLIB, TABOOPROJECT_GROUP + ".reflex", "analyser", REFLEX_VERSION});
+        for (String i : new String[]{"common-env", "common-util", "common-legacy-api", "common-platform-api"}) {
+            modules.add(new String[]{REPO_TABOOLIB, TABOOLIB_GROUP, i, TABOOLIB_VERSION});
+        }
+        for (String i : INSTALL_MODULES) {
+            if (!i.isEmpty()) {
+                modules.add(new String[]{REPO_TABOOLIB, TABOOLIB_GROUP, i, TABOOLIB_VERSION});
+            }
+        }
+        // 过滤不需要下载的模块
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (String[] i : modules) {
+            File envFile = getLibraryFile(i[1], i[2], i[3], "jar");
+            File shaFile = getLibraryFile(i[1], i[2], i[3], "jar.sha1");
+            if (isDownloadRequired(i[1], envFile, shaFile)) {
+                tasks.add(() -> {
+                    if (download(i[0], i[1], i[2], i[3], envFile, shaFile)) {
+                        prefetched.add(envFile);
+                    }
+                    return null;
+                });
+            }
+        }
+        if (tasks.size() < 2 || DOWNLOAD_PARALLELISM < 2) {
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(DOWNLOAD_PARALLELISM, tasks.size()), r -> {
+            Thread thread = new Thread(r, "TabooLib-Downloader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            executor.invokeAll(tasks);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 是否需要下载
+     */
+    static boolean isDownloadRequired(String group, File envFile, File shaFile) {
+        return !PrimitiveIO.validation(envFile, shaFile) || (IS_FORCE_DOWNLOAD_IN_DEV_MODE && IS_DEV_MODE && group.equals(TABOOLIB_GROUP));
+    }
+
+    /**
+     * 下载模块，在下载过程中完成 sha-1 校验
+     */
+    static boolean download(String repo, String group, String name, String version, File envFile, File shaFile) {
+        try {
+            PrimitiveIO.println("Downloading library %s:%s:%s", group, name, version);
+            // 获取地址
+            String url = String.format("%s/%s/%s/%s/%s-%s.jar", repo, group.replace(".", "/"), name, version, name, version);
+            // 下载资源并检查合法性
+            if (PrimitiveIO.downloadFileWithValidation(new URL(url), envFile, shaFile)) {
+                return true;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        PrimitiveIO.println("[TabooLib] Failed to download " + name + "-" + version + ".jar");
+        return false;
+    }
+
     /**
      * 加载完整模块
      */
@@ -166,29 +230,23 @@ public class PrimitiveLoader {
      * @param isIsolated    是否进入沙盒
      * @param isExternal    是否属于外部库（不会扫描类）
      * @param relocate      重定向规则
-     * @param forceRelocate 是否强制重定向
      */
-    static void loadFile(File file, boolean isIsolated, boolean isExternal, String[][] relocate, boolean forceRelocate) throws Throwable {
+    static void loadFile(File file, boolean isIsolated, boolean isExternal, String[][] relocate) throws Throwable {
         File jar = file;
         // 确保在 jar-relocator 加载后运行 >> java.lang.NoClassDefFoundError
         if (relocate.length > 0) {
-            List<Relocation> rel = Arrays.stream(relocate).map(r -> new Relocation(r[0], r[1])).collect(Collectors.toList());
+            List<String[]> rel = new ArrayList<>(Arrays.asList(relocate));
             // 启用 Kotlin 重定向
             if (!SKIP_KOTLIN_RELOCATE) {
                 String kt = "!kotlin".substring(1);
                 String ktc = "!kotlinx.coroutines".substring(1);
-                rel.add(new Relocation(kt + ".", PrimitiveSettings.getRelocatedKotlinVersion() + "."));
-                rel.add(new Relocation(ktc + ".", PrimitiveSettings.getRelocatedKotlinCoroutinesVersion() + "."));
+                rel.add(new String[]{kt + ".", PrimitiveSettings.getRelocatedKotlinVersion() + "."});
+                rel.add(new String[]{ktc + ".", PrimitiveSettings.getRelocatedKotlinCoroutinesVersion() + "."});
             }
             // 是否重定向
+            // 缓存以文件内容及重定向规则为键，文件更新后会自动生成新的缓存
             if (!rel.isEmpty()) {
-                String hash = PrimitiveIO.getHash(file.getName() + Arrays.deepHashCode(relocate) + KOTLIN_VERSION + KOTLIN_COROUTINES_VERSION);
-                jar = new File(getCacheFile(), hash + ".jar");
-                // 文件为空 || 开发模式 || 强制重定向
-                if ((!jar.exists() && jar.length() == 0) || (IS_FORCE_DOWNLOAD_IN_DEV_MODE && IS_DEV_MODE) || forceRelocate) {
-                    jar.getParentFile().mkdirs();
-                    new JarRelocator(PrimitiveIO.copyFile(file, File.createTempFile(file.getName(), ".jar")), jar, rel).run();
-                }
+                jar = RelocationCache.relocate(file, rel);
             }
         }
         ClassLoader loader = ClassAppender.addPath(jar.toPath(), isIsolated, isExternal);
@@ -215,14 +273,10 @@ public class PrimitiveLoader {
     }
 
     /**
-     * 获取缓存路径
+     * 获取模块文件
      */
-    static File getCacheFile() {
-        File file = new File("cache/taboolib/" + projectPackageName);
-        if (!file.exists()) {
-            file.mkdirs();
-        }
-        return file;
+    static File getLibraryFile(String group, String name, String version, String ext) {
+        return new File(getLibraryFile(), String.format("%s/%s/%s/%s-%s.%s", group.replace(".", "/"), name, version, name, version, ext));
     }
 
     /**
@@ -67,6 +67,26 @@ public class PrimitiveSettings {
      */
     public static final boolean IS_FORCE_DOWNLOAD_IN_DEV_MODE = RUNTIME_PROPERTIES.getProperty("force-download-in-dev", "true").equals("true");
 
+    /**
+     * 是否使用构建时生成的类索引（META-INF/taboolib/classes.idx）
+     */
+    public static final boolean IS_CLASS_INDEX_ENABLED = RUNTIME_PROPERTIES.getProperty("enable-class-index", "true").equals("true");
+
+    /**
+     * 是否启用并行依赖注入
+     */
+    public static final boolean IS_PARALLEL_INJECT = RUNTIME_PROPERTIES.getProperty("enable-parallel-inject", "false").equals("true");
+
+    /**
+     * 是否启用启动分析器
+     */
+    public static final boolean IS_STARTUP_PROFILER = RUNTIME_PROPERTIES.getProperty("enable-startup-profiler", "false").equals("true");
+
+    /**
+     * 启动分析器在控制台中输出的条目数量
+     */
+    public static final int STARTUP_PROFILER_TOP = Integer.parseInt(RUNTIME_PROPERTIES.getProperty("startup-profiler-top", "20"));
+
     /**
      * 中央仓库
      */
@@ -77,11 +97,31 @@ public class PrimitiveSettings {
      */
     public static final String REPO_TABOOLIB = RUNTIME_PROPERTIES.getProperty("repo-taboolib", "http://sacredcraft.cn:8081/repository/releases");
 
+    /**
+     * 同时下载的依赖数量
+     */
+    public static final int DOWNLOAD_PARALLELISM = Math.max(1, Integer.parseInt(RUNTIME_PROPERTIES.getProperty("download-parallelism", "4")));
+
     /**
      * libs 位置
      */
     public static final String FILE_LIBS = RUNTIME_PROPERTIES.getProperty("file-libs", "libraries");
 
+    /**
+     * 重定向缓存位置
+     */
+    public static final String FILE_RELOCATION_CACHE = RUNTIME_PROPERTIES.getProperty("file-relocation-cache", "cache/taboolib/relocated");
+
+    /**
+     * 重定向缓存过期时间（天），超过该时间未被任何插件使用的缓存会被清理
+     */
+    public static final long RELOCATION_CACHE_MAX_AGE = Long.parseLong(RUNTIME_PROPERTIES.getProperty("relocation-cache-max-age", "30"));
+
+    /**
+     * 重定向缓存容量上限（MB），超出时优先清理最久未被使用的缓存
+     */
+    public static final long RELOCATION_CACHE_LIMIT = Long.parseLong(RUNTIME_PROPERTIES.getProperty("relocation-cache-limit", "1024"));
+
     /**
      * assets 位置
      */
@@ -0,0 +1,227 @@
+package taboolib.common;
+
+import me.lucko.jarrelocator.JarRelocator;
+import me.lucko.jarrelocator.Relocation;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * TabooLib
+ * taboolib.common.RelocationCache
+ * <p>
+ * 重定向缓存，以原始文件的哈希及重定向规则为键，由同一服务器（及共用同一目录的服务器）中的所有插件共享
+ * 生成时先写入临时文件再原子替换，并通过文件锁避免多个进程同时生成
+ * 首次使用及每次生成后清理缓存：过期的缓存、残留的临时文件，以及超出容量上限时最久未被使用的缓存
+ *
+ * @author agent
+ * @since 2026/10/17
+ */
+@SuppressWarnings("ResultOfMethodCallIgnored")
+public class RelocationCache {
+
+    /**
+     * 缓存格式版本，重定向逻辑变化时需要修改
+     */
+    private static final String VERSION = "1";
+
+    /**
+     * 当前进程使用过的缓存，清理时跳过
+     */
+    private static final Set<String> usedFiles = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 是否已在当前进程中清理过缓存
+     */
+    private static final AtomicBoolean pruned = new AtomicBoolean();
+
+    /**
+     * 获取重定向后的文件，若缓存不存在则生成
+     *
+     * @param source   原始文件
+     * @param relocate 重定向规则（按顺序应用）
+     * @return 重定向后的文件
+     */
+    @NotNull
+    public static File relocate(File source, List<String[]> relocate) throws IOException {
+        File directory = getDirectory();
+        List<String[]> rules = normalize(relocate);
+        String key = getKey(source, rules);
+        // 无法读取原始文件时不使用缓存
+        if (key == null) {
+            File output = File.createTempFile(source.getName(), ".jar");
+            output.deleteOnExit();
+            run(source, output, rules);
+            return output;
+        }
+        File target = new File(directory, key + ".jar");
+        usedFiles.add(target.getName());
+        // 缓存已存在，且已在当前进程中清理过缓存
+        boolean startup = pruned.compareAndSet(false, true);
+        if (!startup && target.length() > 0) {
+            target.setLastModified(System.currentTimeMillis());
+            return target;
+        }
+        try (FileChannel channel = FileChannel.open(new File(directory, ".lock").toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE); FileLock ignored = lock(channel)) {
+            // 获得锁后再次检查，可能已由其他进程生成
+            if (target.length() == 0) {
+                File output = new File(directory, key + ".jar.tmp");
+                try {
+                    run(source, output, rules);
+                    publish(output, target);
+                } finally {
+                    output.delete();
+                }
+            }
+            target.setLastModified(System.currentTimeMillis());
+            prune(directory);
+        }
+        return target;
+    }
+
+    /**
+     * 重定向原始文件的副本，避免原始文件在重定向过程中被修改
+     */
+    private static void run(File source, File output, List<String[]> rules) throws IOException {
+        List<Relocation> relocations = new ArrayList<>();
+        for (String[] rule : rules) {
+            relocations.add(new Relocation(rule[0], rule[1]));
+        }
+        File input = PrimitiveIO.copyFile(source, File.createTempFile(source.getName(), ".jar"));
+        try {
+            new JarRelocator(input, output, relocations).run();
+        } finally {
+            input.delete();
+        }
+    }
+
+    /**
+     * 规范化重定向规则，缓存键与实际重定向使用同一份规则
+     */
+    static List<String[]> normalize(List<String[]> relocate) {
+        List<String[]> rules = new ArrayList<>(relocate.size());
+        for (String[] rule : relocate) {
+            rules.add(new String[]{rule[0].trim(), rule[1].trim()});
+        }
+        return rules;
+    }
+
+    /**
+     * 获取缓存键：原始文件哈希 + 规范化后的重定向规则
+     *
+     * @return 无法读取原始文件的哈希时返回 null
+     */
+    @Nullable
+    static String getKey(File source, List<String[]> rules) {
+        String hash = PrimitiveIO.getHash(source);
+        // 读取失败时 getHash 返回以 null 开头的随机值
+        if (hash.startsWith("null")) {
+            return null;
+        }
+        StringBuilder builder = new StringBuilder(VERSION).append('|').append(hash);
+        for (String[] rule : rules) {
+            builder.append('|').append(rule[0]).append("->").append(rule[1]);
+        }
+        return PrimitiveIO.getHash(builder.toString());
+    }
+
+    /**
+     * 获取缓存目录
+     */
+    static File getDirectory() {
+        File file = new File(PrimitiveSettings.FILE_RELOCATION_CACHE);
+        if (!file.exists()) {
+            file.mkdirs();
+        }
+        return file;
+    }
+
+    /**
+     * 将临时文件原子地替换为缓存文件
+     */
+    private static void publish(File temp, File target) throws IOException {
+        try {
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 获取文件锁
+     * 同一进程中的其他插件持有锁时抛出 OverlappingFileLockException，此时等待其释放
+     */
+    private static FileLock lock(FileChannel channel) throws IOException {
+        while (true) {
+            try {
+                return channel.lock();
+            } catch (OverlappingFileLockException ex) {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 清理缓存，调用时需持有文件锁
+     * 缓存目录由多个插件共享，每次使用缓存都会刷新其修改时间，因此以修改时间作为最近使用的时间
+     * 1. 删除残留的临时文件（持有锁时不会有其他进程正在生成）
+     * 2. 删除超过 {@link PrimitiveSettings#RELOCATION_CACHE_MAX_AGE} 天未被使用的缓存
+     * 3. 总大小超过 {@link PrimitiveSettings#RELOCATION_CACHE_LIMIT} 时，按最近使用时间从旧到新删除，当前进程使用过的缓存除外
+     */
+    private static void prune(File directory) {
+        File[] temps = directory.listFiles((dir, name) -> name.endsWith(".jar.tmp"));
+        if (temps != null) {
+            for (File file : temps) {
+                file.delete();
+            }
+        }
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".jar"));
+        if (files == null) {
+            return;
+        }
+        long expire = System.currentTimeMillis() - PrimitiveSettings.RELOCATION_CACHE_MAX_AGE * 24L * 60L * 60L * 1000L;
+        long limit = PrimitiveSettings.RELOCATION_CACHE_LIMIT * 1024L * 1024L;
+        long total = 0;
+        List<File> remaining = new ArrayList<>();
+        for (File file : files) {
+            if (file.lastModified() < expire && !usedFiles.contains(file.getName()) && file.delete()) {
+                continue;
+            }
+            total += file.length();
+            remaining.add(file);
+        }
+        if (total <= limit) {
+            return;
+        }
+        remaining.sort(Comparator.comparingLong(File::lastModified));
+        for (File file : remaining) {
+            if (total <= limit) {
+                break;
+            }
+            if (usedFiles.contains(file.getName())) {
+                continue;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                total -= length;
+            }
+        }
+    }
+}
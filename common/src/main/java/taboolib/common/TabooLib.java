@@ -53,7 +53,16 @@ public class TabooLib {
         // 记录生命周期
         currentLifeCycle = lifeCycle;
         // 运行生命周期任务
-        Optional.ofNullable(lifeCycleTask.remove(lifeCycle)).ifPresent(tasks -> tasks.forEach(LifeCycleTask::run));
+        LifeCycleProfiler.enterLifeCycle(lifeCycle);
+        try {
+            Optional.ofNullable(lifeCycleTask.remove(lifeCycle)).ifPresent(tasks -> tasks.forEach(LifeCycleTask::run));
+        } finally {
+            LifeCycleProfiler.exit();
+        }
+        // 启动完成后输出分析结果
+        if (lifeCycle == LifeCycle.ACTIVE) {
+            LifeCycleProfiler.dump();
+        }
     }
 
     /**
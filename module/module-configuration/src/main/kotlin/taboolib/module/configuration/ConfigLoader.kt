@@ -1,5 +1,6 @@
 package taboolib.module.configuration
 
+import org.tabooproject.reflex.ClassAnnotation
 import org.tabooproject.reflex.ClassField
 import taboolib.common.LifeCycle
 import taboolib.common.PrimitiveIO
@@ -12,6 +13,8 @@ import taboolib.common.platform.PlatformFactory
 import taboolib.common.platform.function.releaseResourceFile
 import taboolib.common.util.unsafeLazy
 import taboolib.common5.FileWatcher
+import java.io.File
+import java.util.concurrent.ConcurrentHashMap
 import java.util.function.Supplier
 
 @RuntimeDependencies(
@@ -49,24 +52,39 @@ import java.util.function.Supplier
 @Awake
 class ConfigLoader : ClassVisitor(1) {
 
+    /** 并行注入时预先读取的配置文件，在 visit 中取出 */
+    private val prepared = ConcurrentHashMap<String, Prepared>()
+
+    override fun isParallel(): Boolean {
+        return true
+    }
+
+    /**
+     * 预先释放并读取配置文件，赋值与注册仍在 visit 中按顺序进行
+     */
+    override fun prepare(field: ClassField, clazz: Class<*>) {
+        if (field.isAnnotationPresent(Config::class.java)) {
+            val configAnno = field.getAnnotation(Config::class.java)
+            val name = configAnno.property("value", "config.yml")
+            if (files.containsKey(name)) {
+                return
+            }
+            prepared.computeIfAbsent(name) { load(configAnno, field, name) }
+        }
+    }
+
     @Suppress("DEPRECATION")
     override fun visit(field: ClassField, clazz: Class<*>, instance: Supplier<*>?) {
         if (field.isAnnotationPresent(Config::class.java)) {
             val configAnno = field.getAnnotation(Config::class.java)
             val name = configAnno.property("value", "config.yml")
-            val target = configAnno.property("target", name).let {
-                it.ifEmpty { name }
-            }
             if (files.containsKey(name)) {
                 field.set(instance?.get(), files[name]!!.configuration)
             } else {
-                val file = releaseResourceFile(name, target = target)
-                // 兼容模式加载
-                val conf = if (field.fieldType == SecuredFile::class.java) {
-                    SecuredFile.loadConfiguration(file)
-                } else {
-                    Configuration.loadFromFile(file, concurrent = configAnno.property("concurrent", true))
-                }
+                // 预先读取的类型不一致时重新加载
+                val loaded = prepared.remove(name)?.takeIf { it.secured == (field.fieldType == SecuredFile::class.java) } ?: load(configAnno, field, name)
+                val file = loaded.file
+                val conf = loaded.conf
                 // 赋值
                 field.set(instance?.get(), conf)
                 // 自动重载
@@ -95,6 +113,24 @@ class ConfigLoader : ClassVisitor(1) {
         return LifeCycle.INIT
     }
 
+    @Suppress("DEPRECATION")
+    private fun load(configAnno: ClassAnnotation, field: ClassField, name: String): Prepared {
+        val target = configAnno.property("target", name).let {
+            it.ifEmpty { name }
+        }
+        val file = releaseResourceFile(name, target = target)
+        // 兼容模式加载
+        val secured = field.fieldType == SecuredFile::class.java
+        val conf = if (secured) {
+            SecuredFile.loadConfiguration(file)
+        } else {
+            Configuration.loadFromFile(file, concurrent = configAnno.property("concurrent", true))
+        }
+        return Prepared(file, conf, secured)
+    }
+
+    private class Prepared(val file: File, val conf: Configuration, val secured: Boolean)
+
     companion object {
 
         val files = HashMap<String, ConfigNodeFile>()
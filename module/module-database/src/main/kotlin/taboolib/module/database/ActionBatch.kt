@@ -0,0 +1,86 @@
+package taboolib.module.database
+
+/**
+ * TabooLib
+ * taboolib.module.database.ActionBatch
+ *
+ * 批量行为，以 addBatch/executeBatch 的方式执行
+ * 语句相同的相邻行为共用一个 PreparedStatement，多行插入会被拆分为单行语句，因此语句不会随行数变化
+ *
+ * ```
+ * table.batchUpdate(dataSource) {
+ *     players.forEach { player ->
+ *         update {
+ *             set("data", player.data)
+ *             where("name" eq player.name)
+ *         }
+ *     }
+ * }
+ * ```
+ *
+ * @author agent
+ * @since 2026/10/17
+ */
+class ActionBatch(val table: String) {
+
+    /** 待执行的行 */
+    internal val rows = ArrayList<Row>()
+
+    /** 插入数据，每个值为一行 */
+    fun insert(vararg keys: String, func: ActionInsert.() -> Unit) {
+        add(ActionInsert(table, arrayOf(*keys)).also(func))
+    }
+
+    /** 插入数据，每个值为一行 */
+    fun insert(keys: List<String>, func: ActionInsert.() -> Unit) {
+        add(ActionInsert(table, keys.toTypedArray()).also(func))
+    }
+
+    /** 更新数据 */
+    fun update(func: ActionUpdate.() -> Unit) {
+        add(ActionUpdate(table).also(func))
+    }
+
+    /** 删除数据 */
+    fun delete(func: ActionDelete.() -> Unit) {
+        add(ActionDelete(table).also(func))
+    }
+
+    /** 添加行为 */
+    fun add(action: Action) {
+        if (action is ActionInsert) {
+            val query = action.batchQuery
+            action.batchElements.forEach { rows += Row(query, it, action) }
+        } else {
+            rows += Row(action.query, action.elements, action)
+        }
+    }
+
+    /**
+     * 将相邻且语句相同的行分为一组
+     */
+    internal fun groups(): List<List<Row>> {
+        val groups = ArrayList<List<Row>>()
+        var group = ArrayList<Row>()
+        rows.forEach { row ->
+            if (group.isNotEmpty() && group[0].query != row.query) {
+                groups += group
+                group = ArrayList()
+            }
+            group += row
+        }
+        if (group.isNotEmpty()) {
+            groups += group
+        }
+        return groups
+    }
+
+    /** 一行语句及其元素 */
+    internal class Row(val query: String, val elements: List<Any>, val action: Action)
+
+    companion object {
+
+        /** 默认每次提交的行数 */
+        const val DEFAULT_CHUNK_SIZE = 1000
+    }
+}
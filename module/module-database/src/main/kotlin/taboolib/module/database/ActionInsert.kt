@@ -36,6 +36,34 @@ class ActionInsert(val table: String, val keys: Array<String>) : Action {
                 addOperations(duplicateUpdate)
             }.build()
 
+    /** 批量执行时的单行语句 */
+    val batchQuery: String
+        get() = Statement("INSERT INTO")
+            .addSegment(table.asFormattedColumnName())
+            .addSegmentIfTrue(keys.isNotEmpty()) {
+                addKeys(keys)
+            }
+            .addSegmentIfTrue(values.isNotEmpty()) {
+                addSegment("VALUES")
+                addValue(values[0])
+            }
+            .addSegmentIfTrue(duplicateUpdate.isNotEmpty()) {
+                addSegment("ON DUPLICATE KEY UPDATE")
+                addOperations(duplicateUpdate)
+            }.build()
+
+    /** 批量执行时每行的元素，各行的值数量必须相同 */
+    val batchElements: List<List<Any>>
+        get() {
+            val update = duplicateUpdate.mapNotNull { it.value }
+            return values.map { row ->
+                if (row.size != values[0].size) {
+                    error("inconsistent row size: ${row.size} != ${values[0].size}")
+                }
+                row.toList() + update
+            }
+        }
+
     /** 元素 */
     override val elements: List<Any>
         get() {
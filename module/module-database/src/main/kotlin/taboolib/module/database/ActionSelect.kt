@@ -60,9 +60,10 @@ class ActionSelect(val table: String) : ActionFilterable() {
                 addOperations(order)
             }
             .addSegmentIfTrue(limit > 0) {
-                addSegment("LIMIT $limit")
+                // 数量与偏移以参数绑定，语句不随其数值变化
+                addSegment("LIMIT ?")
                     .addSegmentIfTrue(offset > 0) {
-                        addSegment("OFFSET $offset")
+                        addSegment("OFFSET ?")
                     }
             }.build()
 
@@ -72,6 +73,12 @@ class ActionSelect(val table: String) : ActionFilterable() {
             val el = ArrayList<Any>()
             el.addAll(join.flatMap { it.elements })
             el.addAll(filter?.elements ?: emptyList())
+            if (limit > 0) {
+                el += limit
+                if (offset > 0) {
+                    el += offset
+                }
+            }
             return el
         }
 
@@ -142,6 +149,29 @@ class ActionSelect(val table: String) : ActionFilterable() {
         this.offset = offset
     }
 
+    /**
+     * 键集分页，以上一页最后一行的 [column] 作为起点查询下一页，代替 offset
+     * 查询时间不会随页数增加，[column] 应当唯一且具有索引
+     *
+     * ```
+     * var last: Any? = null
+     * do {
+     *     val page = table.select(dataSource) { keyset("id", last, 1000) }.map { getLong("id") }
+     *     last = page.lastOrNull()
+     * } while (page.size == 1000)
+     * ```
+     *
+     * @param after 上一页最后一行的值，为 null 时查询第一页
+     * @param size 每页的行数
+     */
+    fun keyset(column: String, after: Any?, size: Int, type: Order.Type = Order.Type.ASC) {
+        if (after != null) {
+            where(if (type == Order.Type.ASC) column gt after else column lt after)
+        }
+        orderBy(column, type)
+        limit(size)
+    }
+
     /**
      * 内连接（两表的交集）
      */
@@ -29,6 +29,18 @@ object Database {
     @Config("datasource.yml")
     lateinit var settingsFile: Configuration
 
+    /**
+     * MySQL 驱动的默认参数，未在配置文件中指定时使用
+     * 启用预编译语句缓存，使相同的语句在同一连接中只需预编译一次
+     */
+    val defaultDataSourceProperties = mapOf(
+        "cachePrepStmts" to "true",
+        "useServerPrepStmts" to "true",
+        "prepStmtCacheSize" to "250",
+        "prepStmtCacheSqlLimit" to "2048",
+        "rewriteBatchedStatements" to "true",
+    )
+
     /**
      * 创建一个关闭数据库连接的回调函数
      */
@@ -52,6 +64,7 @@ object Database {
         if (host is HostSQL) {
             config.username = host.user
             config.password = host.password
+            defaultDataSourceProperties.forEach { (key, value) -> config.addDataSourceProperty(key, value) }
         } else {
             error("Unsupported host: $host")
         }
@@ -92,6 +105,13 @@ object Database {
                 config.addDataSourceProperty(key, settingsFile.getString("DefaultSettings.DataSourceProperty.$key"))
             }
         }
+        if (host is HostSQL) {
+            defaultDataSourceProperties.forEach { (key, value) ->
+                if (!config.dataSourceProperties.containsKey(key)) {
+                    config.addDataSourceProperty(key, value)
+                }
+            }
+        }
         return config
     }
 }
\ No newline at end of file
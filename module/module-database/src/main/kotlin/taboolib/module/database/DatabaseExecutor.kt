@@ -0,0 +1,304 @@
+package taboolib.module.database
+
+import com.zaxxer.hikari.HikariDataSource
+import taboolib.common.platform.function.warning
+import java.util.concurrent.*
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.LongAdder
+import javax.sql.DataSource
+
+/**
+ * TabooLib
+ * taboolib.module.database.DatabaseExecutor
+ *
+ * 数据库专用的异步执行器，为 [Table] 的各项操作提供 CompletableFuture 版本（见 Table.selectAsync 等）
+ *
+ * 1. 每个 DataSource 拥有独立的队列，同时执行的任务数不超过连接池大小（HikariDataSource.maximumPoolSize）
+ * 2. 队列已满时拒绝任务（future 以 RejectedExecutionException 结束）
+ *    关闭 [rejectWhenFull] 后改为由提交任务的线程直接执行，以此限制提交速度，但提交任务的线程（例如主线程）会被阻塞直到任务执行完毕
+ * 3. 在 JDK 21 及以上版本中可以使用虚拟线程执行任务，否则使用守护线程
+ * 4. DataSource 关闭后，其队列在空闲时被移除
+ *
+ * 默认执行器（[default]）的参数可以在 datasource.yml 的 Executor 中设置，并在插件卸载时等待队列中的任务执行完毕
+ * 超时后仍在排队的任务以 RejectedExecutionException 结束，此后提交的任务由提交任务的线程执行，以便插件在卸载时保存数据
+ *
+ * @author agent
+ * @since 2026/10/17
+ */
+class DatabaseExecutor(
+    /** 每个 DataSource 的队列容量 */
+    val queueCapacity: Int = 1024,
+    /** 是否使用虚拟线程 */
+    val virtualThreads: Boolean = false,
+    /** 队列已满时是否拒绝任务，否则由提交任务的线程执行（会阻塞该线程） */
+    val rejectWhenFull: Boolean = true,
+) {
+
+    private val carrier = createCarrier()
+    private val lanes = ConcurrentHashMap<DataSource, Lane>()
+
+    /** 是否已关闭，关闭后提交的任务由提交任务的线程执行 */
+    @Volatile
+    var isShutdown = false
+        private set
+
+    /**
+     * 提交任务
+     */
+    fun <T> submit(dataSource: DataSource, task: () -> T): CompletableFuture<T> {
+        val future = CompletableFuture<T>()
+        val lane = lanes.computeIfAbsent(dataSource) { Lane(it, limitOf(it)) }
+        val job = Job(lane, future, task)
+        if (isShutdown) {
+            job.run()
+            lane.removeIfClosed()
+        } else if (!lane.offer(job)) {
+            lane.rejected.increment()
+            if (rejectWhenFull) {
+                future.completeExceptionally(RejectedExecutionException("database queue is full ($queueCapacity)"))
+            } else {
+                job.run()
+            }
+            lane.removeIfClosed()
+        }
+        return future
+    }
+
+    /**
+     * 获取 DataSource 的执行记录
+     */
+    fun stats(dataSource: DataSource): Stats? {
+        return lanes[dataSource]?.stats()
+    }
+
+    /**
+     * 获取所有 DataSource 的执行记录
+     */
+    fun stats(): Map<DataSource, Stats> {
+        lanes.values.forEach { it.removeIfClosed() }
+        return lanes.mapValues { it.value.stats() }
+    }
+
+    /**
+     * 关闭执行器，等待队列中的任务执行完毕
+     * 超时后仍在排队的任务以 RejectedExecutionException 结束，正在执行的任务不受影响
+     *
+     * @param timeout 最长等待时间（毫秒）
+     * @return 是否所有任务都已执行完毕
+     */
+    fun shutdown(timeout: Long = 30000): Boolean {
+        isShutdown = true
+        val deadline = System.currentTimeMillis() + timeout
+        while (lanes.values.any { it.isBusy() }) {
+            if (System.currentTimeMillis() > deadline) {
+                val cancelled = lanes.values.sumOf { it.cancel() }
+                warning("DatabaseExecutor: $cancelled task(s) are still pending after ${timeout}ms and have been cancelled")
+                carrier.shutdown()
+                return false
+            }
+            Thread.sleep(10)
+        }
+        carrier.shutdown()
+        return true
+    }
+
+    private fun limitOf(dataSource: DataSource): Int {
+        return (dataSource as? HikariDataSource)?.maximumPoolSize?.takeIf { it > 0 } ?: 10
+    }
+
+    private fun createCarrier(): ExecutorService {
+        if (virtualThreads) {
+            try {
+                return Executors::class.java.getMethod("newVirtualThreadPerTaskExecutor").invoke(null) as ExecutorService
+            } catch (ex: ReflectiveOperationException) {
+                // JDK 19/20 未启用预览特性时以 InvocationTargetException 包装 UnsupportedOperationException
+                warning("DatabaseExecutor: virtual threads require JDK 21+, falling back to platform threads.")
+            } catch (ex: UnsupportedOperationException) {
+                warning("DatabaseExecutor: virtual threads require JDK 21+, falling back to platform threads.")
+            }
+        }
+        // 线程数由各 DataSource 的并发上限约束
+        val counter = AtomicInteger()
+        return Executors.newCachedThreadPool { runnable ->
+            Thread(runnable, "TabooLib-Database-${counter.incrementAndGet()}").also { it.isDaemon = true }
+        }
+    }
+
+    /**
+     * 执行记录，时间单位为纳秒
+     *
+     * @param limit 并发上限
+     * @param active 正在执行的任务数
+     * @param queued 排队中的任务数
+     * @param rejected 因队列已满被拒绝（或由提交线程执行）的任务数
+     * @param waitTime 任务排队的总时间
+     * @param maxWaitTime 任务排队的最长时间
+     * @param runTime 任务执行的总时间
+     * @param maxRunTime 任务执行的最长时间
+     */
+    data class Stats(
+        val limit: Int,
+        val active: Int,
+        val queued: Int,
+        val completed: Long,
+        val failed: Long,
+        val rejected: Long,
+        val waitTime: Long,
+        val maxWaitTime: Long,
+        val runTime: Long,
+        val maxRunTime: Long,
+    ) {
+
+        /** 平均排队时间 */
+        val averageWaitTime: Double
+            get() = if (completed + failed == 0L) 0.0 else waitTime.toDouble() / (completed + failed)
+
+        /** 平均执行时间 */
+        val averageRunTime: Double
+            get() = if (completed + failed == 0L) 0.0 else runTime.toDouble() / (completed + failed)
+    }
+
+    /**
+     * 单个 DataSource 的队列
+     */
+    private inner class Lane(val dataSource: DataSource, val limit: Int) {
+
+        val queue = ConcurrentLinkedQueue<Job<*>>()
+        val queued = AtomicInteger()
+        val permits = Semaphore(limit)
+
+        val completed = LongAdder()
+        val failed = LongAdder()
+        val rejected = LongAdder()
+        val waitTime = LongAdder()
+        val maxWaitTime = AtomicLong()
+        val runTime = LongAdder()
+        val maxRunTime = AtomicLong()
+
+        /** 加入队列，队列已满时返回 false */
+        fun offer(job: Job<*>): Boolean {
+            while (true) {
+                val size = queued.get()
+                if (size >= queueCapacity) {
+                    return false
+                }
+                if (queued.compareAndSet(size, size + 1)) {
+                    break
+                }
+            }
+            queue.add(job)
+            drain()
+            return true
+        }
+
+        /** 在并发上限内取出任务执行 */
+        fun drain() {
+            while (queued.get() > 0 && permits.tryAcquire()) {
+                val job = queue.poll()
+                if (job == null) {
+                    // 任务已计数但尚未入队，由提交任务的线程负责执行
+                    permits.release()
+                    return
+                }
+                queued.decrementAndGet()
+                try {
+                    carrier.execute {
+                        try {
+                            job.run()
+                        } finally {
+                            permits.release()
+                            drain()
+                            removeIfClosed()
+                        }
+                    }
+                } catch (ex: RejectedExecutionException) {
+                    permits.release()
+                    job.run()
+                }
+            }
+        }
+
+        fun isBusy(): Boolean {
+            return queued.get() > 0 || permits.availablePermits() < limit
+        }
+
+        /** 以 RejectedExecutionException 结束所有排队中的任务，返回结束的任务数 */
+        fun cancel(): Int {
+            var count = 0
+            while (true) {
+                val job = queue.poll() ?: break
+                queued.decrementAndGet()
+                job.future.completeExceptionally(RejectedExecutionException("database executor is shut down"))
+                count++
+            }
+            return count
+        }
+
+        /** DataSource 已关闭且队列空闲时移除队列 */
+        fun removeIfClosed() {
+            if ((dataSource as? HikariDataSource)?.isClosed == true && !isBusy()) {
+                lanes.remove(dataSource, this)
+            }
+        }
+
+        fun record(wait: Long, time: Long, success: Boolean) {
+            if (success) completed.increment() else failed.increment()
+            waitTime.add(wait)
+            maxWaitTime.accumulateAndGet(wait) { a, b -> maxOf(a, b) }
+            runTime.add(time)
+            maxRunTime.accumulateAndGet(time) { a, b -> maxOf(a, b) }
+        }
+
+        fun stats(): Stats {
+            return Stats(
+                limit,
+                limit - permits.availablePermits(),
+                queued.get(),
+                completed.sum(),
+                failed.sum(),
+                rejected.sum(),
+                waitTime.sum(),
+                maxWaitTime.get(),
+                runTime.sum(),
+                maxRunTime.get()
+            )
+        }
+    }
+
+    private class Job<T>(val lane: Lane, val future: CompletableFuture<T>, val task: () -> T) : Runnable {
+
+        val created = System.nanoTime()
+
+        /** 提交任务时的调用位置，用于慢查询的输出 */
+        val caller = DatabaseMonitor.capture()
+
+        override fun run() {
+            val start = System.nanoTime()
+            DatabaseMonitor.caller.set(caller)
+            try {
+                val result = task()
+                lane.record(start - created, System.nanoTime() - start, true)
+                future.complete(result)
+            } catch (ex: Throwable) {
+                lane.record(start - created, System.nanoTime() - start, false)
+                future.completeExceptionally(ex)
+            } finally {
+                DatabaseMonitor.caller.remove()
+            }
+        }
+    }
+
+    companion object {
+
+        /** 默认执行器 */
+        val default by lazy {
+            val settings = Database.settingsFile
+            DatabaseExecutor(
+                settings.getInt("Executor.QueueCapacity", 1024),
+                settings.getBoolean("Executor.VirtualThreads", false),
+                settings.getBoolean("Executor.RejectWhenFull", true),
+            ).also { executor -> Database.prepareClose { executor.shutdown(settings.getLong("Executor.ShutdownTimeout", 30000)) } }
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package taboolib.module.database
+
+import taboolib.common.platform.function.warning
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentLinkedDeque
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * TabooLib
+ * taboolib.module.database.DatabaseMonitor
+ *
+ * 数据库监控，记录每种语句、每张表的执行耗时与获取连接的等待时间，并输出慢查询
+ * 语句按结构归类（值与占位符数量不同的语句视为同一种），耗时以 2 的幂次（微秒）分段统计
+ * 结构的种类超过 [MAX_STATEMENTS] 后，新出现的结构统一记录在 [OTHER] 中
+ *
+ * 通过 datasource.yml 中的 Monitor 设置，默认开启，耗时超过 SlowQueryThreshold（毫秒）的语句会连同调用位置一起输出
+ * 经由 [DatabaseExecutor] 执行的语句，调用位置为提交任务时的位置
+ *
+ * @author agent
+ * @since 2026/10/17
+ */
+object DatabaseMonitor {
+
+    /** 是否启用 */
+    var enabled = true
+        get() {
+            if (!loaded) {
+                reload()
+            }
+            return field
+        }
+        set(value) {
+            field = value
+            loaded = true
+        }
+
+    /** 慢查询阈值（毫秒），小于 0 时不输出 */
+    var slowQueryThreshold = 1000L
+        set(value) {
+            field = value
+            loaded = true
+        }
+
+    /** 保留的慢查询数量 */
+    var slowQueryHistory = 100
+        set(value) {
+            field = value
+            loaded = true
+        }
+
+    /** 是否已经读取设置（或是手动设置过） */
+    @Volatile
+    private var loaded = false
+
+    /** 在 [DatabaseExecutor] 中执行的任务，其提交时的调用位置 */
+    internal val caller = ThreadLocal<Throwable>()
+
+    private val statements = ConcurrentHashMap<String, Histogram>()
+    private val tables = ConcurrentHashMap<String, Histogram>()
+    private val connections = ConcurrentHashMap<String, Histogram>()
+    private val slowQueries = ConcurrentLinkedDeque<SlowQuery>()
+
+    /** 语句与其结构的对应关系，超出上限时整体清空 */
+    private val shapes = ConcurrentHashMap<String, String>()
+    private const val MAX_SHAPES = 4096
+
+    /** 单独记录的语句结构数量上限 */
+    const val MAX_STATEMENTS = 1024
+
+    /** 超出上限的语句结构的记录名称 */
+    const val OTHER = "<other>"
+
+    private val valuesPattern = Regex("\\((\\s*\\?\\s*,)*\\s*\\?\\s*\\)(\\s*,\\s*\\((\\s*\\?\\s*,)*\\s*\\?\\s*\\))*")
+    private val stringPattern = Regex("'(?:[^'\\\\]|\\\\.)*'")
+    private val numberPattern = Regex("(?<![\\w`])-?\\d+(\\.\\d+)?(?![\\w`])")
+
+    /**
+     * 从 datasource.yml 中读取设置，配置文件尚未载入时不做任何事，并在下次记录时重新读取
+     */
+    fun reload() {
+        val settings = try {
+            Database.settingsFile
+        } catch (ex: UninitializedPropertyAccessException) {
+            return
+        }
+        enabled = settings.getBoolean("Monitor.Enabled", true)
+        slowQueryThreshold = settings.getLong("Monitor.SlowQueryThreshold", 1000)
+        slowQueryHistory = settings.getInt("Monitor.SlowQueryHistory", 100)
+    }
+
+    /**
+     * 记录提交任务时的调用位置，仅在启用慢查询输出时记录
+     * 只填充调用栈，在输出慢查询时才会解析
+     */
+    internal fun capture(): Throwable? {
+        return if (enabled && slowQueryThreshold >= 0) Throwable() else null
+    }
+
+    /**
+     * 记录语句的执行
+     *
+     * @param action 语句对应的行为，仅在输出慢查询时读取其参数
+     * @param time 耗时（纳秒），查询语句只计算执行部分，不包含读取结果
+     */
+    @JvmStatic
+    fun query(table: String, query: String, action: Action?, time: Long) {
+        if (!enabled) {
+            return
+        }
+        statementOf(shapeOf(query)).add(time)
+        tables.computeIfAbsent(table) { Histogram(it) }.add(time)
+        if (slowQueryThreshold >= 0 && time >= slowQueryThreshold * 1_000_000) {
+            slow(table, query, action?.elements, time)
+        }
+    }
+
+    /**
+     * 记录获取连接的等待时间
+     *
+     * @param pool 连接池名称
+     */
+    @JvmStatic
+    fun acquire(pool: String, time: Long) {
+        if (enabled) {
+            connections.computeIfAbsent(pool) { Histogram(it) }.add(time)
+        }
+    }
+
+    /** 获取每种语句的耗时 */
+    fun getStatements(): List<Snapshot> {
+        return statements.values.map { it.snapshot() }
+    }
+
+    /** 获取每张表的耗时 */
+    fun getTables(): List<Snapshot> {
+        return tables.values.map { it.snapshot() }
+    }
+
+    /** 获取每个连接池获取连接的等待时间 */
+    fun getConnections(): List<Snapshot> {
+        return connections.values.map { it.snapshot() }
+    }
+
+    /** 获取最近的慢查询，按时间从新到旧排列 */
+    fun getSlowQueries(): List<SlowQuery> {
+        return slowQueries.toList()
+    }
+
+    /** 清空记录 */
+    fun reset() {
+        statements.clear()
+        tables.clear()
+        connections.clear()
+        slowQueries.clear()
+    }
+
+    /**
+     * 获取语句的结构：字面值替换为 ?，多组占位符合并为一组
+     */
+    fun shapeOf(query: String): String {
+        shapes[query]?.let { return it }
+        val shape = query
+            .replace(stringPattern, "?")
+            .replace(numberPattern, "?")
+            .replace(valuesPattern, "(?)")
+        if (shapes.size >= MAX_SHAPES) {
+            shapes.clear()
+        }
+        shapes[query] = shape
+        return shape
+    }
+
+    private fun statementOf(shape: String): Histogram {
+        statements[shape]?.let { return it }
+        if (statements.size >= MAX_STATEMENTS) {
+            return statements.computeIfAbsent(OTHER) { Histogram(it) }
+        }
+        return statements.computeIfAbsent(shape) { Histogram(it) }
+    }
+
+    private fun slow(table: String, query: String, parameters: List<Any>?, time: Long) {
+        // 跳过数据库模块与运行库的调用位置
+        val stack = (caller.get() ?: Throwable()).stackTrace.filter {
+            !it.className.startsWith(DatabaseMonitor::class.java.`package`.name) && !it.className.startsWith("java.") && !it.className.startsWith("kotlin.")
+        }.take(8).map { it.toString() }
+        val record = SlowQuery(table, query, parameters?.map { it.toString() } ?: emptyList(), time, System.currentTimeMillis(), Thread.currentThread().name, stack)
+        slowQueries.addFirst(record)
+        while (slowQueries.size > slowQueryHistory) {
+            slowQueries.pollLast()
+        }
+        warning("Slow query (${time / 1_000_000}ms) on ${record.thread}: $query")
+        warning("Parameters (${record.parameters.size}): ${record.parameters}")
+        stack.forEach { warning("    at $it") }
+    }
+
+    /**
+     * 慢查询
+     *
+     * @param time 耗时（纳秒）
+     * @param timestamp 发生时间（毫秒）
+     * @param stack 调用位置
+     */
+    data class SlowQuery(
+        val table: String,
+        val query: String,
+        val parameters: List<String>,
+        val time: Long,
+        val timestamp: Long,
+        val thread: String,
+        val stack: List<String>,
+    )
+
+    /**
+     * 耗时记录，时间单位为纳秒
+     *
+     * @param buckets 第 i 段为 [2^i, 2^(i+1)) 微秒内的次数，第 0 段包含 1 微秒以内
+     */
+    data class Snapshot(val name: String, val count: Long, val total: Long, val max: Long, val buckets: List<Long>) {
+
+        /** 平均耗时 */
+        val average: Double
+            get() = if (count == 0L) 0.0 else total.toDouble() / count
+
+        /**
+         * 估算百分位耗时，返回所在分段的上界
+         *
+         * @param percentile 0 ~ 1
+         */
+        fun percentile(percentile: Double): Long {
+            if (count == 0L) {
+                return 0
+            }
+            val target = Math.ceil(count * percentile).toLong().coerceAtLeast(1)
+            var sum = 0L
+            buckets.forEachIndexed { i, n ->
+                sum += n
+                if (sum >= target) {
+                    return minOf((1L shl (i + 1)) * 1000, max)
+                }
+            }
+            return max
+        }
+    }
+
+    private class Histogram(val name: String) {
+
+        val buckets = Array(BUCKETS) { LongAdder() }
+        val total = LongAdder()
+        val max = AtomicLong()
+
+        fun add(time: Long) {
+            val micros = time / 1000
+            val index = if (micros <= 1) 0 else minOf(63 - java.lang.Long.numberOfLeadingZeros(micros), BUCKETS - 1)
+            buckets[index].increment()
+            total.add(time)
+            max.accumulateAndGet(time) { a, b -> maxOf(a, b) }
+        }
+
+        fun snapshot(): Snapshot {
+            val counts = buckets.map { it.sum() }
+            return Snapshot(name, counts.sum(), total.sum(), max.get(), counts)
+        }
+
+        companion object {
+
+            /** 最后一段包含 2^31 微秒（约 35 分钟）以上 */
+            const val BUCKETS = 32
+        }
+    }
+}
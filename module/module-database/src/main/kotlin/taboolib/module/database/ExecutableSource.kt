@@ -1,5 +1,6 @@
 package taboolib.module.database
 
+import com.zaxxer.hikari.HikariDataSource
 import taboolib.common.platform.function.warning
 import taboolib.common.util.unsafeLazy
 import java.sql.PreparedStatement
@@ -15,14 +16,20 @@ import javax.sql.DataSource
 @Suppress("SqlSourceToSinkFlow")
 open class ExecutableSource(val table: Table<*, *>, var dataSource: DataSource, val transaction: Boolean) {
 
+    /** 是否返回自动生成的键，仅对插入语句生效 */
     var autoGeneratedKeys = Statement.RETURN_GENERATED_KEYS
 
+    /** PreparedStatement 缓存 */
+    internal val statements = StatementCache()
+
     /** 结果处理器 */
     internal val processors = ArrayList<ResultProcessor>()
 
     /** 数据库连接 */
     internal val connection by unsafeLazy {
+        val start = System.nanoTime()
         dataSource.connection.also { connection ->
+            DatabaseMonitor.acquire((dataSource as? HikariDataSource)?.poolName ?: dataSource.javaClass.name, System.nanoTime() - start)
             if (transaction) {
                 connection.autoCommit = false
             }
@@ -73,14 +80,69 @@ open class ExecutableSource(val table: Table<*, *>, var dataSource: DataSource,
         executeUpdate(action.query, action)
     }
 
+    /**
+     * 批量执行
+     *
+     * @param chunkSize 每次提交（executeBatch）的行数
+     */
+    open fun batch(chunkSize: Int = ActionBatch.DEFAULT_CHUNK_SIZE, func: ActionBatch.() -> Unit) {
+        executeBatch(ActionBatch(table.name).also(func), chunkSize)
+    }
+
+    /** 批量插入数据，每个值为一行 */
+    open fun batchInsert(keys: List<String>, chunkSize: Int = ActionBatch.DEFAULT_CHUNK_SIZE, func: ActionInsert.() -> Unit) {
+        batch(chunkSize) { insert(keys, func) }
+    }
+
+    /**
+     * 流式查询，返回的游标关闭时当前工作空间一并关闭，因此应当在独立的工作空间中使用（见 Table.stream）
+     *
+     * @param fetchSize 每次从数据库读取的行数，见 [streamingFetchSize]
+     */
+    open fun <T> stream(fetchSize: Int = ResultCursor.DEFAULT_FETCH_SIZE, func: ActionSelect.() -> Unit, mapper: ResultSet.() -> T): ResultCursor<T> {
+        val action = ActionSelect(table.name).also(func)
+        val query = action.query
+        return try {
+            // 游标持有的语句不放回缓存，随游标关闭
+            val statement = prepare(query, action)
+            statement.fetchSize = streamingFetchSize(fetchSize)
+            action.elements.forEachIndexed { index, any -> statement.setObject(index + 1, any) }
+            ResultCursor(execute(query, action) { statement.executeQuery() }, mapper) {
+                try {
+                    statement.close()
+                } finally {
+                    close()
+                }
+            }
+        } catch (ex: SQLException) {
+            warning("Query: $query")
+            warning("Parameters (${action.elements.size}): ${action.elements}")
+            close()
+            throw ex
+        }
+    }
+
+    /**
+     * 流式查询使用的 fetchSize
+     * MySQL 驱动默认会读取全部结果，未启用 useCursorFetch 时需要使用 Integer.MIN_VALUE 逐行读取
+     */
+    open fun streamingFetchSize(fetchSize: Int): Int {
+        val host = table.host
+        if (host !is HostSQL) {
+            return fetchSize
+        }
+        val cursorFetch = host.flags.contains("useCursorFetch=true") || (dataSource as? HikariDataSource)?.dataSourceProperties?.getProperty("useCursorFetch") == "true"
+        return if (cursorFetch) fetchSize else Int.MIN_VALUE
+    }
+
     /** 执行查询语句 */
     open fun executeQuery(query: String, action: Action? = null): ResultProcessor {
         return ResultProcessor(query, object : Executable<ResultSet> {
             override fun <C> invoke(func: ResultSet.() -> C): C {
                 return try {
-                    connection.prepareStatement(query, autoGeneratedKeys).use { statement ->
+                    prepared(query, action) { statement ->
                         action?.elements?.forEachIndexed { index, any -> statement.setObject(index + 1, any) }
-                        statement.executeQuery().use { func(it) }.also { action?.callFinally(statement, connection) }
+                        execute(query, action) { statement.executeQuery() }.use { func(it) }.also { action?.callFinally(statement, connection) }
                     }
                 } catch (ex: SQLException) {
                     warning("Query: $query")
@@ -95,9 +157,9 @@ open class ExecutableSource(val table: Table<*, *>, var dataSource: DataSource,
     open fun executeUpdate(query: String, action: Action? = null): ResultProcessor {
         return ResultProcessor.Update(query) {
             try {
-                connection.prepareStatement(query, autoGeneratedKeys).use { statement ->
+                prepared(query, action) { statement ->
                     action?.elements?.forEachIndexed { index, any -> statement.setObject(index + 1, any) }
-                    statement.executeUpdate().also { action?.callFinally(statement, connection) }
+                    execute(query, action) { statement.executeUpdate() }.also { action?.callFinally(statement, connection) }
                 }
             } catch (ex: SQLException) {
                 warning("Query: $query")
@@ -107,6 +169,89 @@ open class ExecutableSource(val table: Table<*, *>, var dataSource: DataSource,
         }.also { processors += it }
     }
 
+    /**
+     * 执行批量语句，返回受影响的总行数
+     * 驱动无法给出行数的语句（SUCCESS_NO_INFO）不计入，每次提交后调用该批次中各行为的 onFinally 回调（可用于读取 generatedKeys）
+     */
+    open fun executeBatch(batch: ActionBatch, chunkSize: Int = ActionBatch.DEFAULT_CHUNK_SIZE): ResultProcessor {
+        if (chunkSize <= 0) error("chunk size must be positive")
+        val groups = batch.groups()
+        return ResultProcessor.Update(groups.joinToString("; ") { it[0].query }) {
+            var count = 0
+            groups.forEach { group ->
+                val query = group[0].query
+                try {
+                    prepared(query, group[0].action) { statement ->
+                        group.chunked(chunkSize).forEach { chunk ->
+                            chunk.forEach { row ->
+                                row.elements.forEachIndexed { index, any -> statement.setObject(index + 1, any) }
+                                statement.addBatch()
+                            }
+                            execute(query, null) { statement.executeBatch() }.forEach { if (it > 0) count += it }
+                            chunk.map { it.action }.distinct().forEach { it.callFinally(statement, connection) }
+                        }
+                    }
+                } catch (ex: SQLException) {
+                    warning("Query: $query")
+                    warning("Rows: ${group.size}")
+                    throw ex
+                }
+            }
+            count
+        }.also { processors += it }
+    }
+
+    /**
+     * 执行语句并记录耗时，见 [DatabaseMonitor]
+     */
+    private inline fun <T> execute(query: String, action: Action?, func: () -> T): T {
+        if (!DatabaseMonitor.enabled) {
+            return func()
+        }
+        val start = System.nanoTime()
+        val result = func()
+        DatabaseMonitor.query(table.name, query, action, System.nanoTime() - start)
+        return result
+    }
+
+    /**
+     * 在 [func] 中使用 PreparedStatement，执行完毕后放回缓存，发生异常时关闭
+     */
+    private inline fun <T> prepared(query: String, action: Action?, func: (PreparedStatement) -> T): T {
+        val statement = prepare(query, action)
+        val result = try {
+            func(statement)
+        } catch (ex: Throwable) {
+            try {
+                statement.close()
+            } catch (e: Throwable) {
+                ex.addSuppressed(e)
+            }
+            throw ex
+        }
+        release(query, action, statement)
+        return result
+    }
+
+    /**
+     * 获取 PreparedStatement，同一工作空间中语句相同且已经执行完毕的行为共用一个 PreparedStatement
+     * 只有插入语句会请求自动生成的键
+     */
+    open fun prepare(query: String, action: Action?): PreparedStatement {
+        return statements.prepare(connection, query, generatedKeys(action))
+    }
+
+    /**
+     * 放回执行完毕的 PreparedStatement，见 [StatementCache.release]
+     */
+    open fun release(query: String, action: Action?, statement: PreparedStatement) {
+        statements.release(query, generatedKeys(action), statement)
+    }
+
+    private fun generatedKeys(action: Action?): Boolean {
+        return action is ActionInsert && autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS
+    }
+
     /**
      * 保存更改，需要启用事务模式
      * 如果保存失败则会回滚
@@ -129,6 +274,7 @@ open class ExecutableSource(val table: Table<*, *>, var dataSource: DataSource,
                 }
                 Result.failure(e)
             } finally {
+                statements.close()
                 connection.close()
             }
         } else {
@@ -140,6 +286,7 @@ open class ExecutableSource(val table: Table<*, *>, var dataSource: DataSource,
      * 关闭链接
      */
     open fun close() {
+        statements.close()
         connection.close()
     }
 
@@ -207,10 +354,10 @@ open class ExecutableSource(val table: Table<*, *>, var dataSource: DataSource,
             ResultProcessor(sql, object : Executable<ResultSet> {
                 override fun <C> invoke(func: ResultSet.() -> C): C {
                     return try {
-                        connection.prepareStatement(sql, autoGeneratedKeys).use { statement: PreparedStatement ->
+                        prepared(sql, null) { statement ->
                             statement.setString(1, table.name)
                             statement.setString(2, index.name)
-                            statement.executeQuery().use { func(it) }
+                            execute(sql, null) { statement.executeQuery() }.use { func(it) }
                         }
                     } catch (ex: SQLException) {
                         warning("Query: $sql")
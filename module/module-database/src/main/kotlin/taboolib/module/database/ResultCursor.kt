@@ -0,0 +1,84 @@
+package taboolib.module.database
+
+import java.sql.ResultSet
+
+/**
+ * TabooLib
+ * taboolib.module.database.ResultCursor
+ *
+ * 流式读取的结果，每次迭代从数据库读取下一行，不会将所有结果载入内存
+ * 只能迭代一次，读取完毕后自动关闭，提前结束时需要手动关闭：
+ *
+ * ```
+ * val cursor = table.stream(dataSource, func = { where("type" eq 1) }) { getString("name") }
+ * try {
+ *     cursor.take(100).forEach { println(it) }
+ * } finally {
+ *     cursor.close()
+ * }
+ * ```
+ *
+ * @author agent
+ * @since 2026/10/17
+ */
+class ResultCursor<T>(private val resultSet: ResultSet, private val mapper: ResultSet.() -> T, private val onClose: () -> Unit) : Sequence<T>, AutoCloseable {
+
+    /** 是否已经迭代 */
+    private var iterated = false
+
+    /** 是否已经关闭 */
+    var isClosed = false
+        private set
+
+    override fun iterator(): Iterator<T> {
+        if (iterated) {
+            error("cursor can only be iterated once")
+        }
+        iterated = true
+        return object : Iterator<T> {
+
+            /** 0：未读取，1：存在下一行，2：结束 */
+            private var state = 0
+
+            override fun hasNext(): Boolean {
+                if (state == 0) {
+                    state = when {
+                        isClosed -> 2
+                        resultSet.next() -> 1
+                        else -> {
+                            close()
+                            2
+                        }
+                    }
+                }
+                return state == 1
+            }
+
+            override fun next(): T {
+                if (!hasNext()) {
+                    throw NoSuchElementException()
+                }
+                state = 0
+                return mapper(resultSet)
+            }
+        }
+    }
+
+    override fun close() {
+        if (isClosed) {
+            return
+        }
+        isClosed = true
+        try {
+            resultSet.close()
+        } finally {
+            onClose()
+        }
+    }
+
+    companion object {
+
+        /** 默认每次从数据库读取的行数 */
+        const val DEFAULT_FETCH_SIZE = 1000
+    }
+}
@@ -0,0 +1,66 @@
+package taboolib.module.database
+
+import java.sql.Connection
+import java.sql.PreparedStatement
+import java.sql.Statement
+
+/**
+ * TabooLib
+ * taboolib.module.database.StatementCache
+ *
+ * 工作空间（[ExecutableSource]）内的 PreparedStatement 缓存
+ * 语句在使用期间从缓存中取出，用完后通过 [release] 放回，因此嵌套执行相同的语句（例如在 map 中查询，或是流式查询未关闭时）会创建新的 PreparedStatement，
+ * 不会重新执行正在读取结果的语句；放回时已有相同的空闲语句则直接关闭
+ * 空闲的语句在工作空间关闭时一并关闭，跨连接的缓存由驱动完成（cachePrepStmts、useServerPrepStmts），见 datasource.yml
+ *
+ * @author agent
+ * @since 2026/10/17
+ */
+class StatementCache {
+
+    private val statements = HashMap<String, PreparedStatement>()
+
+    /**
+     * 取出语句对应的 PreparedStatement，复用时会清空已绑定的参数
+     * 使用完毕后需要调用 [release] 放回，发生异常时应当直接关闭
+     *
+     * @param generatedKeys 是否需要返回自动生成的键
+     */
+    fun prepare(connection: Connection, query: String, generatedKeys: Boolean): PreparedStatement {
+        val cached = statements.remove(key(query, generatedKeys))
+        if (cached != null && !cached.isClosed) {
+            cached.clearParameters()
+            return cached
+        }
+        return if (generatedKeys) {
+            connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)
+        } else {
+            connection.prepareStatement(query)
+        }
+    }
+
+    /**
+     * 放回使用完毕的 PreparedStatement，其结果集应当已经关闭
+     */
+    fun release(query: String, generatedKeys: Boolean, statement: PreparedStatement) {
+        if (statements.putIfAbsent(key(query, generatedKeys), statement) != null) {
+            statement.close()
+        }
+    }
+
+    /** 关闭所有空闲的 PreparedStatement */
+    fun close() {
+        statements.values.forEach {
+            try {
+                it.close()
+            } catch (ex: Throwable) {
+                ex.printStackTrace()
+            }
+        }
+        statements.clear()
+    }
+
+    private fun key(query: String, generatedKeys: Boolean): String {
+        return if (generatedKeys) "K:$query" else query
+    }
+}
@@ -1,5 +1,7 @@
 package taboolib.module.database
 
+import java.sql.ResultSet
+import java.util.concurrent.CompletableFuture
 import javax.sql.DataSource
 
 /**
@@ -17,6 +19,9 @@ open class Table<T : Host<E>, E : ColumnBuilder>(val name: String, val host: Hos
 
     val indices = ArrayList<Index>()
 
+    /** 异步操作使用的执行器，为 null 时使用 [DatabaseExecutor.default] */
+    var executor: DatabaseExecutor? = null
+
     init {
         func(this)
     }
@@ -67,6 +72,114 @@ open class Table<T : Host<E>, E : ColumnBuilder>(val name: String, val host: Hos
         return workspace(dataSource) { insert(keys) { func(this) } }.run()
     }
 
+    /**
+     * 批量插入数据，每个值为一行，以 addBatch/executeBatch 的方式执行
+     * 每次提交后调用 onFinally 回调，可在其中读取该批次的 generatedKeys
+     *
+     * ```
+     * table.batchInsert(dataSource, listOf("name", "data")) {
+     *     players.forEach { value(it.name, it.data) }
+     * }
+     * ```
+     *
+     * @param chunkSize 每次提交的行数
+     * @return 受影响的总行数
+     */
+    open fun batchInsert(dataSource: DataSource, keys: List<String>, chunkSize: Int = ActionBatch.DEFAULT_CHUNK_SIZE, func: ActionInsert.() -> Unit): Int {
+        return workspace(dataSource) { batchInsert(keys, chunkSize, func) }.run()
+    }
+
+    /**
+     * 批量执行更新、删除或插入，语句相同的相邻行为共用一个 PreparedStatement，见 [ActionBatch]
+     *
+     * @param chunkSize 每次提交的行数
+     * @return 受影响的总行数
+     */
+    open fun batchUpdate(dataSource: DataSource, chunkSize: Int = ActionBatch.DEFAULT_CHUNK_SIZE, func: ActionBatch.() -> Unit): Int {
+        return workspace(dataSource) { batch(chunkSize, func) }.run()
+    }
+
+    /**
+     * 流式查询，结果逐行读取，适用于导出或迁移大量数据
+     * 返回的游标在读取完毕后自动关闭，提前结束时需要手动关闭，见 [ResultCursor]
+     *
+     * @param fetchSize 每次从数据库读取的行数（MySQL 未启用 useCursorFetch 时逐行读取）
+     */
+    open fun <T> stream(dataSource: DataSource, fetchSize: Int = ResultCursor.DEFAULT_FETCH_SIZE, func: ActionSelect.() -> Unit, mapper: ResultSet.() -> T): ResultCursor<T> {
+        return ExecutableSource(this, dataSource, false).stream(fetchSize, func, mapper)
+    }
+
+    /**
+     * 流式遍历查询结果
+     *
+     * @return 遍历的行数
+     */
+    open fun forEachRow(dataSource: DataSource, fetchSize: Int = ResultCursor.DEFAULT_FETCH_SIZE, func: ActionSelect.() -> Unit, action: ResultSet.() -> Unit): Int {
+        val cursor = stream(dataSource, fetchSize, func, action)
+        try {
+            return cursor.count()
+        } finally {
+            cursor.close()
+        }
+    }
+
+    /** 异步执行 */
+    open fun <R> submit(dataSource: DataSource, task: () -> R): CompletableFuture<R> {
+        return (executor ?: DatabaseExecutor.default).submit(dataSource, task)
+    }
+
+    /**
+     * 异步查询，在 [result] 中处理结果
+     *
+     * ```
+     * table.selectAsync(dataSource, { where("name" eq "sky") }) { firstOrNull { getInt("data") } }
+     * ```
+     */
+    open fun <R> selectAsync(dataSource: DataSource, func: ActionSelect.() -> Unit, result: ResultProcessorList.() -> R): CompletableFuture<R> {
+        return submit(dataSource) { result(select(dataSource, func)) }
+    }
+
+    open fun findAsync(dataSource: DataSource, func: ActionSelect.() -> Unit): CompletableFuture<Boolean> {
+        return submit(dataSource) { find(dataSource, func) }
+    }
+
+    open fun updateAsync(dataSource: DataSource, func: ActionUpdate.() -> Unit): CompletableFuture<Int> {
+        return submit(dataSource) { update(dataSource, func) }
+    }
+
+    open fun deleteAsync(dataSource: DataSource, func: ActionDelete.() -> Unit): CompletableFuture<Int> {
+        return submit(dataSource) { delete(dataSource, func) }
+    }
+
+    open fun insertAsync(dataSource: DataSource, vararg keys: String, func: ActionInsert.() -> Unit): CompletableFuture<Int> {
+        return submit(dataSource) { insert(dataSource, *keys, func = func) }
+    }
+
+    open fun insertAsync(dataSource: DataSource, keys: List<String>, func: ActionInsert.() -> Unit): CompletableFuture<Int> {
+        return submit(dataSource) { insert(dataSource, keys, func) }
+    }
+
+    open fun batchInsertAsync(dataSource: DataSource, keys: List<String>, chunkSize: Int = ActionBatch.DEFAULT_CHUNK_SIZE, func: ActionInsert.() -> Unit): CompletableFuture<Int> {
+        return submit(dataSource) { batchInsert(dataSource, keys, chunkSize, func) }
+    }
+
+    open fun batchUpdateAsync(dataSource: DataSource, chunkSize: Int = ActionBatch.DEFAULT_CHUNK_SIZE, func: ActionBatch.() -> Unit): CompletableFuture<Int> {
+        return submit(dataSource) { batchUpdate(dataSource, chunkSize, func) }
+    }
+
+    open fun createTableAsync(dataSource: DataSource, checkExists: Boolean = true): CompletableFuture<Unit> {
+        return submit(dataSource) { createTable(dataSource, checkExists) }
+    }
+
+    /** 异步执行工作空间，在 [result] 中执行并处理结果（如 `run()`、`map {}`） */
+    open fun <R> workspaceAsync(dataSource: DataSource, func: ExecutableSource.() -> Unit, result: ResultProcessorList.() -> R): CompletableFuture<R> {
+        return submit(dataSource) { result(workspace(dataSource, func)) }
+    }
+
+    open fun transactionAsync(dataSource: DataSource, func: ExecutableSource.() -> Unit): CompletableFuture<Result<Unit>> {
+        return submit(dataSource) { transaction(dataSource, func) }
+    }
+
     /**
      * # 创建工作空间
      *
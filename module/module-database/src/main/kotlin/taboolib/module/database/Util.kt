@@ -45,13 +45,15 @@ fun <T> PreparedStatement.use(func: (statement: PreparedStatement) -> T): T {
     }
 }
 
+private val functionPattern = Regex("\\(.*\\)")
+
 /**
  * 尝试格式化一个列名
  */
 internal fun Any.asFormattedColumnName(): String {
     val str = this.toString()
     // 如果字符串是 "*" 或 "null" || 如果字符串是一个函数或表达式 || 如果字符串已经被格式化
-    if (str == "*" || str == "null" || str.contains(Regex("\\(.*\\)")) || (str.startsWith("`") && str.endsWith("`"))) {
+    if (str == "*" || str == "null" || str.contains(functionPattern) || (str.startsWith("`") && str.endsWith("`"))) {
         return str
     }
     // 通过 "." 分割字符串并分别格式化每个部分
@@ -22,6 +22,8 @@ dependencies {
     compileOnly("public:PlaceholderAPI:2.10.9")
     // 解析
     compileOnly("com.mojang:datafixerupper:4.0.26")
+    // 编译
+    compileOnly("org.ow2.asm:asm:9.6")
     // 表达式
     compileOnly("org.apache.commons:commons-jexl3:3.2.1")
     // 服务端
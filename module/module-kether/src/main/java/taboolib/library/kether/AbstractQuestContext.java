@@ -8,6 +8,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingDeque;
+import java.util.function.BiConsumer;
 
 public abstract class AbstractQuestContext<T extends AbstractQuestContext<T>> implements QuestContext {
 
@@ -28,7 +29,7 @@ public abstract class AbstractQuestContext<T extends AbstractQuestContext<T>> im
     protected abstract Executor createExecutor();
 
     protected Frame createRootFrame() {
-        return new SimpleNamedFrame(null, new LinkedList<>(), new SimpleVarTable(null), QuestContext.BASE_BLOCK, this);
+        return new SimpleNamedFrame(null, new LinkedList<>(), new SimpleVarTable(null, VarSlots.layoutOf(quest)), QuestContext.BASE_BLOCK, this);
     }
 
     public QuestService<T> getService() {
@@ -71,6 +72,48 @@ public abstract class AbstractQuestContext<T extends AbstractQuestContext<T>> im
         });
     }
 
+    /**
+     * 在当前线程中执行
+     * 所有动作均未挂起时直接返回结果，不经过 CompletableFuture
+     * 否则返回 {@link QuestAction.Pending}，其中的 future 与 {@link #runActions()} 的返回值一致
+     */
+    @SuppressWarnings("unchecked")
+    public Object runActionsSync() {
+        Preconditions.checkState(future == null, "already running");
+        Object result = rootFrame instanceof SimpleNamedFrame ? ((SimpleNamedFrame) rootFrame).runSync() : new QuestAction.Pending(rootFrame.run());
+        if (result instanceof QuestAction.Pending) {
+            future = ((CompletableFuture<Object>) ((QuestAction.Pending) result).getFuture()).thenApply(o -> {
+                if (this.exitStatus == null) {
+                    this.exitStatus = ExitStatus.success();
+                }
+                return o;
+            });
+            return new QuestAction.Pending(future);
+        }
+        if (this.exitStatus == null) {
+            this.exitStatus = ExitStatus.success();
+        }
+        future = SimpleNamedFrame.COMPLETED;
+        return result;
+    }
+
+    /**
+     * 重置上下文以便再次执行，仅适用于已在当前线程中执行完毕（见 {@link #runActionsSync()}）的上下文
+     * 根帧的变量与子帧会被清空，语句块回到起点
+     *
+     * @return 是否重置成功，上下文仍在执行或已被终止时返回 false
+     */
+    public boolean reset() {
+        if (future != SimpleNamedFrame.COMPLETED || !(rootFrame instanceof SimpleNamedFrame)) {
+            return false;
+        }
+        rootFrame.close();
+        ((SimpleNamedFrame) rootFrame).reset();
+        exitStatus = null;
+        future = null;
+        return true;
+    }
+
     @Override
     public void terminate() {
         this.rootFrame.close();
@@ -101,11 +144,15 @@ public abstract class AbstractQuestContext<T extends AbstractQuestContext<T>> im
     public static abstract class AbstractFrame implements Frame {
 
         protected final Frame parent;
-        protected final List<Frame> frames;
         protected final VarTable varTable;
         protected final QuestContext questContext;
         protected CompletableFuture<?> future;
-        protected final Deque<AutoCloseable> closeables = new LinkedBlockingDeque<>();
+
+        /**
+         * 子帧与可关闭资源在首次使用时创建，frames 为 null 时同理
+         */
+        protected List<Frame> frames;
+        protected volatile Deque<AutoCloseable> closeables;
 
         public AbstractFrame(Frame parent, List<Frame> frames, VarTable varTable, QuestContext questContext) {
             this.parent = parent;
@@ -121,6 +168,9 @@ public abstract class AbstractQuestContext<T extends AbstractQuestContext<T>> im
 
         @Override
         public List<Frame> children() {
+            if (this.frames == null) {
+                this.frames = new LinkedList<>();
+            }
             return this.frames;
         }
 
@@ -131,8 +181,8 @@ public abstract class AbstractQuestContext<T extends AbstractQuestContext<T>> im
 
         @Override
         public Frame newFrame(@NotNull String name) {
-            SimpleNamedFrame frame = new SimpleNamedFrame(this, new LinkedList<>(), new SimpleVarTable(this), name, context());
-            this.frames.add(frame);
+            SimpleNamedFrame frame = new SimpleNamedFrame(this, null, new SimpleVarTable(this), name, context());
+            children().add(frame);
             return frame;
         }
 
@@ -140,12 +190,12 @@ public abstract class AbstractQuestContext<T extends AbstractQuestContext<T>> im
         public Frame newFrame(@NotNull ParsedAction<?> action) {
             Frame frame;
             if (action.get(ActionProperties.REQUIRE_FRAME, false)) {
-                frame = new SimpleNamedFrame(this, new LinkedList<>(), new SimpleVarTable(this), "__anon__" + System.nanoTime(), context());
+                frame = new SimpleNamedFrame(this, null, new SimpleVarTable(this), "__anon__" + System.nanoTime(), context());
                 frame.setNext(action);
             } else {
-                frame = new SimpleActionFrame(this, new LinkedList<>(), new SimpleVarTable(this), action, context());
+                frame = new SimpleActionFrame(this, null, new SimpleVarTable(this), action, context());
             }
-            this.frames.add(frame);
+            children().add(frame);
             return frame;
         }
 
@@ -156,15 +206,25 @@ public abstract class AbstractQuestContext<T extends AbstractQuestContext<T>> im
 
         @Override
         public <T extends AutoCloseable> T addClosable(T closeable) {
-            this.closeables.addFirst(closeable);
+            Deque<AutoCloseable> closeables = this.closeables;
+            if (closeables == null) {
+                synchronized (this) {
+                    if ((closeables = this.closeables) == null) {
+                        this.closeables = closeables = new LinkedBlockingDeque<>();
+                    }
+                }
+            }
+            closeables.addFirst(closeable);
             return closeable;
         }
 
         @Override
         public void close() {
             if (this.future == null) return;
-            for (Frame frame : this.frames) {
-                frame.close();
+            if (this.frames != null) {
+                for (Frame frame : this.frames) {
+                    frame.close();
+                }
             }
             this.cleanup();
             this.future = null;
@@ -176,6 +236,10 @@ public abstract class AbstractQuestContext<T extends AbstractQuestContext<T>> im
         }
 
         void cleanup() {
+            Deque<AutoCloseable> closeables = this.closeables;
+            if (closeables == null) {
+                return;
+            }
             while (!closeables.isEmpty()) {
                 try {
                     closeables.pollFirst().close();
@@ -186,12 +250,51 @@ public abstract class AbstractQuestContext<T extends AbstractQuestContext<T>> im
         }
     }
 
+    /**
+     * 记录动作的耗时，挂起的动作同时记录其完成的延迟
+     */
+    static void profile(Frame frame, ParsedAction<?> action, CompletableFuture<?> future, long start) {
+        QuestProfiler profiler = QuestProfiler.get();
+        if (profiler == null) {
+            return;
+        }
+        profiler.action(frame, action, System.nanoTime() - start);
+        if (!future.isDone()) {
+            future.whenComplete((v, e) -> profiler.suspend(frame, action, System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * 记录在当前线程中执行的动作，需要等待时同时记录其完成的延迟
+     */
+    static void profileResult(Frame frame, ParsedAction<?> action, Object result, long start) {
+        if (result instanceof QuestAction.Pending) {
+            profile(frame, action, ((QuestAction.Pending) result).getFuture(), start);
+        } else {
+            QuestProfiler profiler = QuestProfiler.get();
+            if (profiler != null) {
+                profiler.action(frame, action, System.nanoTime() - start);
+            }
+        }
+    }
+
     public static class SimpleNamedFrame extends AbstractFrame {
 
+        /**
+         * 在当前线程中执行完毕的帧
+         */
+        static final CompletableFuture<Object> COMPLETED = CompletableFuture.completedFuture(null);
+
         private final String name;
         private Quest.Block block, next;
         private int sp = -1, np = -1;
 
+        /**
+         * 分析器正在计时的语句块
+         */
+        private Quest.Block timedBlock;
+        private long timedBlockStart;
+
         public SimpleNamedFrame(Frame parent, List<Frame> frames, VarTable varTable, String name, QuestContext questContext) {
             super(parent, frames, varTable, questContext);
             this.name = name;
@@ -241,37 +344,137 @@ public abstract class AbstractQuestContext<T extends AbstractQuestContext<T>> im
             Preconditions.checkState(this.future == null, "already running");
             varTable.initialize(this);
             future = new CompletableFuture<>();
-            process(future);
+            complete(process(null));
             return (CompletableFuture<T>) future;
         }
 
-        @SuppressWarnings("unchecked")
-        private void process(CompletableFuture<?> future) {
+        /**
+         * 在当前线程中执行
+         * 所有动作均未挂起时直接返回结果，否则返回 {@link QuestAction.Pending}，其中的 future 会在所有动作完成后完成
+         */
+        public Object runSync() {
+            Preconditions.checkState(this.future == null, "already running");
+            varTable.initialize(this);
+            Object result = process(null);
+            if (result instanceof QuestAction.Pending) {
+                return result;
+            }
+            future = COMPLETED;
+            return result;
+        }
+
+        /**
+         * 依次执行动作
+         * 可以直接执行的动作不经过 CompletableFuture，遇到需要等待的动作时挂起，在其完成后继续执行
+         *
+         * @param future 上一个动作的结果
+         * @return 最后一个动作的结果，挂起（或被终止）时返回 {@link QuestAction.Pending}
+         */
+        private Object process(CompletableFuture<?> future) {
+            Object value = null;
             while (!context().getExitStatus().isPresent()) {
                 this.cleanup();
-                this.frames.removeIf(Frame::isDone);
+                if (this.frames != null) {
+                    this.frames.removeIf(Frame::isDone);
+                }
                 Optional<? extends ParsedAction<?>> optional = nextAction();
                 if (optional.isPresent()) {
                     ParsedAction<?> action = optional.get();
-                    CompletableFuture<?> newFuture = action.process(this);
+                    CompletableFuture<?> newFuture;
+                    long start = QuestProfiler.ENABLED ? System.nanoTime() : 0L;
+                    if (action.isSync()) {
+                        Object result = action.processSync(this);
+                        if (!(result instanceof QuestAction.Pending)) {
+                            if (QuestProfiler.ENABLED) {
+                                profileResult(this, action, result, start);
+                            }
+                            value = result;
+                            future = null;
+                            continue;
+                        }
+                        newFuture = ((QuestAction.Pending) result).getFuture();
+                    } else {
+                        newFuture = action.process(this);
+                    }
+                    if (QuestProfiler.ENABLED) {
+                        profile(this, action, newFuture, start);
+                    }
                     if (!newFuture.isDone()) {
-                        newFuture.thenRun(() -> this.process(newFuture));
-                        return;
+                        CompletableFuture<?> suspended = suspend();
+                        newFuture.thenRun(() -> complete(this.process(newFuture)));
+                        return new QuestAction.Pending(suspended);
                     } else {
                         future = newFuture;
                     }
                 } else {
-                    ((CompletableFuture<Object>) this.future).complete(future != null && future.isDone() ? future.join() : null);
-                    return;
+                    if (QuestProfiler.ENABLED) {
+                        timeBlock(null);
+                    }
+                    return future != null ? (future.isDone() ? future.join() : null) : value;
                 }
             }
+            return new QuestAction.Pending(suspend());
+        }
+
+        /**
+         * 回到初始状态，仅由 {@link AbstractQuestContext#reset()} 在帧关闭后调用
+         */
+        void reset() {
+            if (this.frames != null) {
+                this.frames.clear();
+            }
+            if (this.varTable instanceof SimpleVarTable) {
+                ((SimpleVarTable) this.varTable).reset();
+            } else {
+                this.varTable.close();
+                this.varTable.clear();
+            }
+            this.block = null;
+            this.next = null;
+            this.sp = -1;
+            this.np = -1;
+            this.timedBlock = null;
+            context().getQuest().getBlock(name).ifPresent(this::setNext);
+        }
+
+        /**
+         * 获取用于挂起的 future，在当前线程中执行时延迟创建
+         */
+        private CompletableFuture<?> suspend() {
+            if (this.future == null) {
+                this.future = new CompletableFuture<>();
+            }
+            return this.future;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void complete(Object result) {
+            if (!(result instanceof QuestAction.Pending)) {
+                ((CompletableFuture<Object>) this.future).complete(result);
+            }
         }
 
         private Optional<? extends ParsedAction<?>> nextAction() {
             if (next != null && np != -1) {
+                if (QuestProfiler.ENABLED && (next != block || np == 0)) {
+                    timeBlock(next);
+                }
                 return (block = next).get(sp = np++);
             } else return Optional.empty();
         }
+
+        /**
+         * 结束正在计时的语句块，并开始为下一个语句块计时
+         */
+        private void timeBlock(Quest.Block next) {
+            long now = System.nanoTime();
+            QuestProfiler profiler = QuestProfiler.get();
+            if (timedBlock != null && profiler != null) {
+                profiler.block(this, timedBlock, now - timedBlockStart);
+            }
+            timedBlock = next;
+            timedBlockStart = now;
+        }
     }
 
     public static class SimpleActionFrame extends AbstractFrame {
@@ -312,21 +515,71 @@ public abstract class AbstractQuestContext<T extends AbstractQuestContext<T>> im
         public <T> CompletableFuture<T> run() {
             Preconditions.checkState(this.future == null, "already running");
             this.varTable.initialize(this);
+            if (QuestProfiler.ENABLED) {
+                long start = System.nanoTime();
+                this.future = this.action.process(this);
+                profile(this, this.action, this.future, start);
+                return (CompletableFuture<T>) this.future;
+            }
             return (CompletableFuture<T>) (this.future = this.action.process(this));
         }
+
+        /**
+         * 在当前线程中执行，动作可以直接执行时不经过 CompletableFuture
+         *
+         * @return 执行结果，需要等待时返回 {@link QuestAction.Pending}
+         */
+        public Object runSync() {
+            if (!this.action.isSync()) {
+                return QuestAction.Pending.of(run());
+            }
+            Preconditions.checkState(this.future == null, "already running");
+            this.varTable.initialize(this);
+            long start = QuestProfiler.ENABLED ? System.nanoTime() : 0L;
+            Object result = this.action.processSync(this);
+            this.future = result instanceof QuestAction.Pending ? ((QuestAction.Pending) result).getFuture() : SimpleNamedFrame.COMPLETED;
+            if (QuestProfiler.ENABLED) {
+                profileResult(this, this.action, result, start);
+            }
+            return result;
+        }
     }
 
+    /**
+     * 变量表
+     * 具有槽位的变量（见 {@link VarSlots}）存放在以槽位为下标的数组中，其余变量存放在 map 中
+     * 槽位布局来自脚本，子表沿用父表的布局，数组与 map 均在首次写入时创建
+     * 与 map 一致，被设置为 null 的变量仍会出现在 {@link #keys()} 与 {@link #values()} 中，读取时视为不存在（继续查找父表）
+     */
     public static class SimpleVarTable implements VarTable {
 
+        /**
+         * 数组中被设置为 null 的变量
+         */
+        private static final Object NULL = new Object();
+
         private final Frame parent;
-        private final Map<String, Object> map;
+        private final VarSlots layout;
+        private Map<String, Object> map;
+        private Object[] slots;
 
         public SimpleVarTable(Frame parent) {
-            this(parent, new HashMap<>());
+            this.parent = parent;
+            this.layout = parent != null && parent.variables() instanceof SimpleVarTable ? ((SimpleVarTable) parent.variables()).layout : null;
         }
 
+        public SimpleVarTable(Frame parent, VarSlots layout) {
+            this.parent = parent;
+            this.layout = layout;
+        }
+
+        /**
+         * 以给定的 map 作为变量表的存储，变量的修改会直接反映在 map 中（与 map 的修改同理）
+         * 为此该表不使用槽位，以此为父表的子表同样如此
+         */
         public SimpleVarTable(Frame parent, Map<String, Object> map) {
             this.parent = parent;
+            this.layout = null;
             this.map = map;
         }
 
@@ -338,79 +591,196 @@ public abstract class AbstractQuestContext<T extends AbstractQuestContext<T>> im
         @Override
         @SuppressWarnings("unchecked")
         public <T> Optional<T> get(@NotNull String name) throws CompletionException {
-            Object o = map.get(name);
-            if (o == null && parent != null) {
-                return parent.variables().get(name);
-            }
-            if (o instanceof QuestFuture<?>) {
-                o = ((QuestFuture<?>) o).getFuture().join();
-            }
-            return (Optional<T>) Optional.ofNullable(o);
+            return (Optional<T>) Optional.ofNullable(find(-1, name));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T getOrNull(int slot, @NotNull String name) {
+            return (T) find(slot, name);
         }
 
         @Override
         @SuppressWarnings("unchecked")
         public <T> Optional<QuestFuture<T>> getFuture(@NotNull String name) {
-            Object o = map.get(name);
-            if (o == null && parent != null) {
-                return parent.variables().getFuture(name);
-            }
-            if (o instanceof QuestFuture) {
-                return Optional.of((QuestFuture<T>) o);
-            } else {
-                return Optional.empty();
+            SimpleVarTable table = this;
+            while (true) {
+                Object o = table.load(table.slotOf(-1, name), name);
+                if (o != null) {
+                    return o instanceof QuestFuture ? Optional.of((QuestFuture<T>) o) : Optional.empty();
+                }
+                if (table.parent == null) {
+                    return Optional.empty();
+                }
+                VarTable next = table.parent.variables();
+                if (!(next instanceof SimpleVarTable)) {
+                    return next.getFuture(name);
+                }
+                table = (SimpleVarTable) next;
             }
         }
 
         @Override
         public void set(@NotNull String name, Object value) {
-            if (name.startsWith("~") || parent() == null) {
-                map.put(name, value);
-            } else {
-                parent().set(name, value);
+            set(-1, name, value);
+        }
+
+        @Override
+        public void set(int slot, @NotNull String name, Object value) {
+            // 局部变量（~）写入当前表，其他变量写入根表
+            SimpleVarTable table = this;
+            while (!name.startsWith("~") && table.parent != null) {
+                VarTable next = table.parent.variables();
+                if (!(next instanceof SimpleVarTable)) {
+                    next.set(slot, name, value);
+                    return;
+                }
+                table = (SimpleVarTable) next;
             }
+            table.store(table.slotOf(slot, name), name, value);
         }
 
         @Override
         public <T> void set(@NotNull String name, @NotNull ParsedAction<T> owner, @NotNull CompletableFuture<T> future) {
-            this.map.put(name, new QuestFuture<>(owner, future));
+            store(slotOf(-1, name), name, new QuestFuture<>(owner, future));
         }
 
         @Override
         public void remove(@NotNull String name) {
-            this.map.remove(name);
+            int slot = slotOf(-1, name);
+            if (slot >= 0) {
+                if (slots != null) {
+                    slots[slot] = null;
+                }
+            } else if (map != null) {
+                map.remove(name);
+            }
         }
 
         @Override
         public void clear() {
-            this.map.clear();
+            if (map != null) {
+                map.clear();
+            }
+            slots = null;
         }
 
         @Override
         public Set<String> keys() {
-            return Collections.unmodifiableSet(this.map.keySet());
+            Set<String> keys = new LinkedHashSet<>();
+            forEach((k, v) -> keys.add(k));
+            return Collections.unmodifiableSet(keys);
         }
 
         @Override
         public Collection<Map.Entry<String, Object>> values() {
-            return Collections.unmodifiableCollection(this.map.entrySet());
+            List<Map.Entry<String, Object>> values = new ArrayList<>();
+            forEach((k, v) -> values.add(new AbstractMap.SimpleImmutableEntry<>(k, v)));
+            return Collections.unmodifiableCollection(values);
         }
 
         @Override
         public void initialize(@NotNull Frame frame) {
-            for (Object o : this.map.values()) {
-                if (o instanceof QuestFuture) {
-                    ((QuestFuture<?>) o).run(frame);
+            forEach((k, v) -> {
+                if (v instanceof QuestFuture) {
+                    ((QuestFuture<?>) v).run(frame);
                 }
-            }
+            });
         }
 
         @Override
         public void close() {
-            for (Object o : this.map.values()) {
-                if (o instanceof QuestFuture) {
-                    ((QuestFuture<?>) o).close();
+            forEach((k, v) -> {
+                if (v instanceof QuestFuture) {
+                    ((QuestFuture<?>) v).close();
+                }
+            });
+        }
+
+        /**
+         * 清空变量，保留已创建的数组与 map 以便复用
+         */
+        void reset() {
+            close();
+            if (slots != null) {
+                Arrays.fill(slots, null);
+            }
+            if (map != null) {
+                map.clear();
+            }
+        }
+
+        /**
+         * 获取变量在当前表中的槽位
+         * 语句提供的槽位只有与当前布局中的名称一致时才会被使用（语句可能来自其他脚本），否则按名称查找，不会分配新的槽位
+         *
+         * @return 槽位，不存在时返回 -1
+         */
+        private int slotOf(int slot, String name) {
+            VarSlots layout = this.layout;
+            if (layout == null) {
+                return -1;
+            }
+            if (slot >= 0 && slot < layout.size() && name.equals(layout.nameOf(slot))) {
+                return slot;
+            }
+            return layout.indexOf(name);
+        }
+
+        /**
+         * 沿父表依次查找变量
+         */
+        private Object find(int slot, String name) {
+            SimpleVarTable table = this;
+            while (true) {
+                Object o = table.load(table.slotOf(slot, name), name);
+                if (o != null) {
+                    return o instanceof QuestFuture<?> ? ((QuestFuture<?>) o).getFuture().join() : o;
+                }
+                if (table.parent == null) {
+                    return null;
+                }
+                VarTable next = table.parent.variables();
+                if (!(next instanceof SimpleVarTable)) {
+                    return next.getOrNull(slot, name);
+                }
+                table = (SimpleVarTable) next;
+            }
+        }
+
+        private Object load(int slot, String name) {
+            if (slot >= 0) {
+                Object[] slots = this.slots;
+                Object o = slots != null ? slots[slot] : null;
+                return o == NULL ? null : o;
+            }
+            return map != null ? map.get(name) : null;
+        }
+
+        private void store(int slot, String name, Object value) {
+            if (slot >= 0) {
+                if (slots == null) {
+                    slots = new Object[layout.size()];
+                }
+                slots[slot] = value == null ? NULL : value;
+            } else {
+                if (map == null) {
+                    map = new HashMap<>();
                 }
+                map.put(name, value);
+            }
+        }
+
+        private void forEach(BiConsumer<String, Object> consumer) {
+            if (slots != null) {
+                for (int i = 0; i < slots.length; i++) {
+                    if (slots[i] != null) {
+                        consumer.accept(layout.nameOf(i), slots[i] == NULL ? null : slots[i]);
+                    }
+                }
+            }
+            if (map != null) {
+                map.forEach(consumer);
             }
         }
     }
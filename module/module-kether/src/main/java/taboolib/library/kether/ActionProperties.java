@@ -7,4 +7,14 @@ public class ActionProperties {
     public static final ParsedAction.ActionProperty<Integer> ADDRESS = ParsedAction.ActionProperty.of("address");
 
     public static final ParsedAction.ActionProperty<Boolean> REQUIRE_FRAME = ParsedAction.ActionProperty.of("require_frame");
+
+    /**
+     * 语句的注册名称，仅在启用 Kether 分析器时记录
+     */
+    public static final ParsedAction.ActionProperty<String> NAME = ParsedAction.ActionProperty.of("name");
+
+    /**
+     * 语句在源码中的起始位置，仅在启用脚本缓存时记录，用于重新解析无法直接保存的语句
+     */
+    public static final ParsedAction.ActionProperty<Integer> INDEX = ParsedAction.ActionProperty.of("index");
 }
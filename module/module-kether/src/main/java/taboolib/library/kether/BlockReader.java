@@ -32,10 +32,13 @@ public class BlockReader extends AbstractStringReader {
     }
 
     public Quest parse(String id) {
-        while (hasNext()) {
-            readBlock();
-        }
-        return new SimpleQuest(content, blocks, id);
+        VarSlots slots = new VarSlots();
+        return VarSlots.parse(slots, () -> {
+            while (hasNext()) {
+                readBlock();
+            }
+            return new SimpleQuest(content, blocks, id, slots);
+        });
     }
 
     public void readBlock() {
@@ -25,6 +25,45 @@ public class ParsedAction<A> {
         return this.action.process(frame);
     }
 
+    /**
+     * 是否可以在调用者的帧中直接执行
+     */
+    public boolean isSync() {
+        return this.action.isSync() && !get(ActionProperties.REQUIRE_FRAME, false);
+    }
+
+    /**
+     * 在当前线程中直接执行
+     *
+     * @return 执行结果，需要等待时返回 {@link QuestAction.Pending}
+     */
+    public Object processSync(QuestContext.Frame frame) {
+        return this.action.processSync(frame);
+    }
+
+    /**
+     * 作为子动作在当前线程中执行，与 {@code frame.newFrame(action).run()} 一致
+     * 不依赖帧的动作直接在调用者的帧中执行，其余动作在新的子帧中执行
+     *
+     * @return 执行结果，需要等待时返回 {@link QuestAction.Pending}
+     */
+    public Object processNested(QuestContext.Frame frame) {
+        if (this.action.isFrameFree()) {
+            if (QuestProfiler.ENABLED) {
+                long start = System.nanoTime();
+                Object result = this.action.processSync(frame);
+                AbstractQuestContext.profileResult(frame, this, result, start);
+                return result;
+            }
+            return this.action.processSync(frame);
+        }
+        QuestContext.Frame child = frame.newFrame(this);
+        if (child instanceof AbstractQuestContext.SimpleActionFrame) {
+            return ((AbstractQuestContext.SimpleActionFrame) child).runSync();
+        }
+        return QuestAction.Pending.of(child.run());
+    }
+
     @SuppressWarnings("unchecked")
     public <T> T get(ActionProperty<T> key) throws NullPointerException {
         return Objects.requireNonNull((T) this.properties.get(key.id), key.id);
@@ -32,11 +32,124 @@ public final class Parser<T> implements App<Parser.Mu, T> {
 
         CompletableFuture<T> run(@NotNull QuestContext.Frame frame);
 
+        /**
+         * 是否可以在当前线程中直接执行
+         */
+        default boolean isSync() {
+            return false;
+        }
+
+        /**
+         * 在当前线程中直接执行
+         *
+         * @return 执行结果，需要等待或执行失败时返回 {@link QuestAction.Pending}
+         */
+        default Object runSync(@NotNull QuestContext.Frame frame) {
+            return QuestAction.Pending.of(run(frame));
+        }
+
         static <T> Action<T> point(T value) {
-            return frame -> CompletableFuture.completedFuture(value);
+            return sync(frame -> value);
+        }
+
+        /**
+         * 创建一个可以直接执行的 Action
+         */
+        static <T> Action<T> sync(Function<QuestContext.Frame, T> func) {
+            return new SyncAction<T>() {
+
+                @Override
+                public Object runSync(@NotNull QuestContext.Frame frame) {
+                    return func.apply(frame);
+                }
+            };
+        }
+
+        /**
+         * 在新的帧中执行 ParsedAction 的 Action
+         * 可以直接执行的动作不经过 CompletableFuture，见 {@link ParsedAction#processNested(QuestContext.Frame)}
+         */
+        static <T> Action<T> parsed(ParsedAction<?> action) {
+            if (action.isSync()) {
+                return new SyncAction<T>() {
+
+                    @Override
+                    public Object runSync(@NotNull QuestContext.Frame frame) {
+                        return action.processNested(frame);
+                    }
+                };
+            }
+            return frame -> frame.newFrame(action).run();
+        }
+    }
+
+    /**
+     * 可以在当前线程中直接执行的 Action
+     * 以 runSync 为准，run 由其结果包装而来
+     */
+    public static abstract class SyncAction<T> implements Action<T> {
+
+        @Override
+        public boolean isSync() {
+            return true;
+        }
+
+        @Override
+        public abstract Object runSync(@NotNull QuestContext.Frame frame);
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public CompletableFuture<T> run(@NotNull QuestContext.Frame frame) {
+            Object result;
+            try {
+                result = runSync(frame);
+            } catch (Throwable ex) {
+                result = QuestAction.Pending.failed(ex);
+            }
+            if (result instanceof QuestAction.Pending) {
+                return (CompletableFuture<T>) ((QuestAction.Pending) result).getFuture();
+            }
+            return CompletableFuture.completedFuture((T) result);
         }
     }
 
+    /**
+     * 当所有 Action 均可直接执行时，将其组合为一个可以直接执行的 Action，否则使用 fallback
+     * 执行时依次运行所有 Action 并合并结果，遇到需要等待的 Action 时，剩余部分改为异步执行
+     */
+    private static <R> Action<R> combine(Action<?>[] actions, Function<Object[], R> merge, Action<R> fallback) {
+        for (Action<?> action : actions) {
+            if (!action.isSync()) {
+                return fallback;
+            }
+        }
+        return new SyncAction<R>() {
+
+            @Override
+            public Object runSync(@NotNull QuestContext.Frame frame) {
+                Object[] values = new Object[actions.length];
+                for (int i = 0; i < actions.length; i++) {
+                    Object value = actions[i].runSync(frame);
+                    if (value instanceof QuestAction.Pending) {
+                        return new QuestAction.Pending(resume(frame, actions, values, i, ((QuestAction.Pending) value).getFuture()).thenApply(merge));
+                    }
+                    values[i] = value;
+                }
+                return merge.apply(values);
+            }
+        };
+    }
+
+    private static CompletableFuture<Object[]> resume(QuestContext.Frame frame, Action<?>[] actions, Object[] values, int index, CompletableFuture<?> future) {
+        return future.thenCompose(value -> {
+            values[index] = value;
+            if (index + 1 >= actions.length) {
+                return CompletableFuture.completedFuture(values);
+            }
+            return resume(frame, actions, values, index + 1, actions[index + 1].run(frame));
+        });
+    }
+
     public final Function<QuestReader, Action<T>> reader;
 
     private Parser(Function<QuestReader, Action<T>> reader) {
@@ -73,10 +186,16 @@ public final class Parser<T> implements App<Parser.Mu, T> {
             }
             r.expect("]");
             list.trimToSize();
-            return frame -> {
+            return combine(list.toArray(new Action<?>[0]), values -> {
+                List<T> result = new ArrayList<>(values.length);
+                for (Object value : values) {
+                    result.add((T) value);
+                }
+                return result;
+            }, frame -> {
                 CompletableFuture<T>[] futures = (CompletableFuture<T>[]) list.stream().map(it -> it.run(frame)).toArray(CompletableFuture<?>[]::new);
                 return CompletableFuture.allOf(futures).thenApply(it -> Arrays.stream(futures).map(CompletableFuture::join).collect(Collectors.toList()));
-            };
+            });
         });
     }
 
@@ -121,6 +240,26 @@ public final class Parser<T> implements App<Parser.Mu, T> {
                     public CompletableFuture<T> process(@NotNull QuestContext.Frame frame) {
                         return action.run(frame).thenCompose(it -> (CompletableFuture<T>) it.run(frame));
                     }
+
+                    @Override
+                    public boolean isSync() {
+                        return action.isSync();
+                    }
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public Object processSync(@NotNull QuestContext.Frame frame) {
+                        // 与 process 一致，执行过程中的异常以失败的 future 返回
+                        try {
+                            Object result = action.runSync(frame);
+                            if (result instanceof Pending) {
+                                return new Pending(((Pending) result).getFuture().thenCompose(it -> ((Action<T>) it).run(frame)));
+                            }
+                            return ((Action<A>) result).runSync(frame);
+                        } catch (Throwable ex) {
+                            return Pending.failed(ex);
+                        }
+                    }
                 };
             }
         };
@@ -130,7 +269,7 @@ public final class Parser<T> implements App<Parser.Mu, T> {
         return Instance.INSTANCE;
     }
 
-    @SuppressWarnings("DuplicatedCode")
+    @SuppressWarnings({"DuplicatedCode", "unchecked"})
     public enum Instance implements Applicative<Mu, Instance.Mu> {
 
         INSTANCE;
@@ -151,9 +290,9 @@ public final class Parser<T> implements App<Parser.Mu, T> {
                 return new Parser<>(r -> {
                     Action<Function<A, R>> af = f.reader.apply(r);
                     Action<A> aa = fa.reader.apply(r);
-                    return frame -> {
+                    return combine(new Action<?>[]{af, aa}, v -> ((Function<A, R>) v[0]).apply((A) v[1]), frame -> {
                         return af.run(frame).thenCompose(f1 -> aa.run(frame).thenApply(f1));
-                    };
+                    });
                 });
             };
         }
@@ -163,7 +302,7 @@ public final class Parser<T> implements App<Parser.Mu, T> {
             Function<QuestReader, Action<A>> function = unbox(ts).reader;
             return new Parser<>(r -> {
                 Action<A> a = function.apply(r);
-                return frame -> a.run(frame).thenApply(func);
+                return combine(new Action<?>[]{a}, v -> func.apply((A) v[0]), frame -> a.run(frame).thenApply(func));
             });
         }
 
@@ -176,13 +315,13 @@ public final class Parser<T> implements App<Parser.Mu, T> {
                 Action<BiFunction<A, B, R>> af = f.reader.apply(r);
                 Action<A> aa = fa.reader.apply(r);
                 Action<B> ab = fb.reader.apply(r);
-                return frame -> af.run(frame).thenCompose(
+                return combine(new Action<?>[]{af, aa, ab}, v -> ((BiFunction<A, B, R>) v[0]).apply((A) v[1], (B) v[2]), frame -> af.run(frame).thenCompose(
                         f1 -> aa.run(frame).thenCompose(
                                 f2 -> ab.run(frame).thenApply(
                                         f3 -> f1.apply(f2, f3)
                                 )
                         )
-                );
+                ));
             });
         }
 
@@ -197,7 +336,7 @@ public final class Parser<T> implements App<Parser.Mu, T> {
                 Action<T1> aa = fa.reader.apply(r);
                 Action<T2> ab = fb.reader.apply(r);
                 Action<T3> ac = fc.reader.apply(r);
-                return frame -> af.run(frame).thenCompose(
+                return combine(new Action<?>[]{af, aa, ab, ac}, v -> ((Function3<T1, T2, T3, R>) v[0]).apply((T1) v[1], (T2) v[2], (T3) v[3]), frame -> af.run(frame).thenCompose(
                         f1 -> aa.run(frame).thenCompose(
                                 f2 -> ab.run(frame).thenCompose(
                                         f3 -> ac.run(frame).thenApply(
@@ -205,7 +344,7 @@ public final class Parser<T> implements App<Parser.Mu, T> {
                                         )
                                 )
                         )
-                );
+                ));
             });
         }
 
@@ -223,7 +362,7 @@ public final class Parser<T> implements App<Parser.Mu, T> {
                 Action<T2> ab = fb.reader.apply(r);
                 Action<T3> ac = fc.reader.apply(r);
                 Action<T4> ad = fd.reader.apply(r);
-                return frame -> af.run(frame).thenCompose(
+                return combine(new Action<?>[]{af, aa, ab, ac, ad}, v -> ((Function4<T1, T2, T3, T4, R>) v[0]).apply((T1) v[1], (T2) v[2], (T3) v[3], (T4) v[4]), frame -> af.run(frame).thenCompose(
                         f1 -> aa.run(frame).thenCompose(
                                 f2 -> ab.run(frame).thenCompose(
                                         f3 -> ac.run(frame).thenCompose(
@@ -233,7 +372,7 @@ public final class Parser<T> implements App<Parser.Mu, T> {
                                         )
                                 )
                         )
-                );
+                ));
             });
         }
 
@@ -252,7 +391,7 @@ public final class Parser<T> implements App<Parser.Mu, T> {
                 Action<T3> ac = fc.reader.apply(r);
                 Action<T4> ad = fd.reader.apply(r);
                 Action<T5> ae = fe.reader.apply(r);
-                return frame -> af.run(frame).thenCompose(
+                return combine(new Action<?>[]{af, aa, ab, ac, ad, ae}, v -> ((Function5<T1, T2, T3, T4, T5, R>) v[0]).apply((T1) v[1], (T2) v[2], (T3) v[3], (T4) v[4], (T5) v[5]), frame -> af.run(frame).thenCompose(
                         f1 -> aa.run(frame).thenCompose(
                                 f2 -> ab.run(frame).thenCompose(
                                         f3 -> ac.run(frame).thenCompose(
@@ -264,7 +403,7 @@ public final class Parser<T> implements App<Parser.Mu, T> {
                                         )
                                 )
                         )
-                );
+                ));
             });
         }
     }
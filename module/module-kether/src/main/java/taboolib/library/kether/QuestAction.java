@@ -11,6 +11,30 @@ public abstract class QuestAction<T> {
      */
     public abstract CompletableFuture<T> process(@NotNull QuestContext.Frame frame);
 
+    /**
+     * 是否可以通过 {@link #processSync(QuestContext.Frame)} 在当前线程中直接执行
+     */
+    public boolean isSync() {
+        return false;
+    }
+
+    /**
+     * 是否不依赖所在的帧（局部变量、可关闭资源、子帧等），例如常量与变量读取
+     * 这类动作作为子动作执行时不需要创建新的帧，见 {@link ParsedAction#processNested(QuestContext.Frame)}
+     */
+    public boolean isFrameFree() {
+        return false;
+    }
+
+    /**
+     * 在当前线程中直接执行，仅在 {@link #isSync()} 为 true 时被调用
+     *
+     * @return 执行结果，需要等待或执行失败时返回 {@link Pending}
+     */
+    public Object processSync(@NotNull QuestContext.Frame frame) {
+        return Pending.of(process(frame));
+    }
+
     public static <T> QuestAction<T> noop() {
         return new QuestAction<T>() {
 
@@ -25,4 +49,33 @@ public abstract class QuestAction<T> {
             }
         };
     }
+
+    /**
+     * 需要等待（或已失败）的执行结果
+     */
+    public static final class Pending {
+
+        private final CompletableFuture<?> future;
+
+        public Pending(CompletableFuture<?> future) {
+            this.future = future;
+        }
+
+        public CompletableFuture<?> getFuture() {
+            return future;
+        }
+
+        /**
+         * 已正常完成时直接返回结果，否则返回 Pending
+         */
+        public static Object of(CompletableFuture<?> future) {
+            return future.isDone() && !future.isCompletedExceptionally() ? future.join() : new Pending(future);
+        }
+
+        public static Pending failed(Throwable ex) {
+            CompletableFuture<?> future = new CompletableFuture<>();
+            future.completeExceptionally(ex);
+            return new Pending(future);
+        }
+    }
 }
@@ -99,10 +99,25 @@ public interface QuestContext {
             return o.orElse(null);
         }
 
+        /**
+         * 通过解析时分配的槽位读取变量（见 {@link VarSlots}），不存在时返回 null
+         */
+        @Nullable
+        default <T> T getOrNull(int slot, @NotNull String name) {
+            return getOrNull(name);
+        }
+
         <T> Optional<QuestFuture<T>> getFuture(@NotNull String name);
 
         void set(@NotNull String name, Object value);
 
+        /**
+         * 通过解析时分配的槽位写入变量（见 {@link VarSlots}）
+         */
+        default void set(int slot, @NotNull String name, Object value) {
+            set(name, value);
+        }
+
         void remove(@NotNull String name);
 
         void clear();
@@ -0,0 +1,67 @@
+package taboolib.library.kether;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import taboolib.common.PrimitiveSettings;
+
+/**
+ * TabooLib
+ * taboolib.library.kether.QuestProfiler
+ * <p>
+ * 脚本执行的分析接口，由上层（KetherProfiler）实现并注册
+ * 通过 env.properties 中的 enable-kether-profiler 开启，关闭时执行过程中只有一次静态常量判断
+ *
+ * @author agent
+ * @since 2026/10/17
+ */
+public interface QuestProfiler {
+
+    /**
+     * 是否启用
+     */
+    boolean ENABLED = "true".equals(PrimitiveSettings.RUNTIME_PROPERTIES.getProperty("enable-kether-profiler", "false"));
+
+    /**
+     * 记录动作的执行
+     *
+     * @param time 耗时（纳秒），挂起的动作只计算挂起前的部分
+     */
+    void action(@NotNull QuestContext.Frame frame, @NotNull ParsedAction<?> action, long time);
+
+    /**
+     * 记录挂起的动作从开始执行到完成的延迟
+     */
+    void suspend(@NotNull QuestContext.Frame frame, @NotNull ParsedAction<?> action, long time);
+
+    /**
+     * 记录语句块的执行
+     *
+     * @param time 从进入语句块到离开（或执行完毕）的耗时（纳秒），包含挂起的时间
+     */
+    void block(@NotNull QuestContext.Frame frame, @NotNull Quest.Block block, long time);
+
+    /**
+     * 注册分析器，仅在启用时生效
+     */
+    static void register(@Nullable QuestProfiler profiler) {
+        if (ENABLED) {
+            Holder.instance = profiler;
+        }
+    }
+
+    /**
+     * 获取已注册的分析器
+     */
+    @Nullable
+    static QuestProfiler get() {
+        return Holder.instance;
+    }
+
+    final class Holder {
+
+        private static volatile QuestProfiler instance;
+
+        private Holder() {
+        }
+    }
+}
@@ -13,17 +13,30 @@ public class SimpleQuest implements Quest {
     private final char[] content;
     private final String id;
     private final Map<String, Block> map = Maps.newHashMap();
+    private final VarSlots slots;
 
     public SimpleQuest(char[] content, Map<String, Block> map, String id) {
+        this(content, map, id, null);
+    }
+
+    public SimpleQuest(char[] content, Map<String, Block> map, String id, VarSlots slots) {
         this.content = content;
         this.id = id;
         this.map.putAll(map);
+        this.slots = slots;
     }
 
     public char[] getContent() {
         return content;
     }
 
+    /**
+     * 解析时分配的变量槽位布局，不存在时为 null
+     */
+    public VarSlots getSlots() {
+        return slots;
+    }
+
     @Override
     public String getId() {
         return this.id;
@@ -109,7 +109,7 @@ public class SimpleReader extends AbstractStringReader implements QuestReader {
                 Optional<QuestActionParser> optional = service.getRegistry().getParser(element, ns);
                 if (optional.isPresent()) {
                     beforeParse();
-                    return wrap(optional.get().resolve(this));
+                    return wrap(optional.get().resolve(this), element);
                 } else if (Kether.INSTANCE.isAllowToleranceParser()) {
                     beforeParse();
                     return wrap(new ActionLiteral<>(element, true));
@@ -127,6 +127,17 @@ public class SimpleReader extends AbstractStringReader implements QuestReader {
         return new ParsedAction<>(action);
     }
 
+    /**
+     * 包装已注册的语句，启用 Kether 分析器时记录其注册名称，以区分组合语句等同一类型的语句
+     */
+    protected <T> ParsedAction<T> wrap(QuestAction<T> action, String name) {
+        ParsedAction<T> parsedAction = wrap(action);
+        if (QuestProfiler.ENABLED) {
+            parsedAction.set(ActionProperties.NAME, name);
+        }
+        return parsedAction;
+    }
+
     @Override
     public void expect(@NotNull String value) {
         super.expect(value);
@@ -0,0 +1,113 @@
+package taboolib.library.kether;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * TabooLib
+ * taboolib.library.kether.VarSlots
+ * <p>
+ * 脚本的变量槽位布局，每个脚本独立，在解析时由 get、set 等语句分配并随脚本固定
+ * {@link AbstractQuestContext.SimpleVarTable} 以槽位为下标存取变量，以名称存取时只查找、不会分配
+ * 超出上限的名称没有槽位（-1），此时以名称存取变量
+ *
+ * @author agent
+ * @since 2026/10/17
+ */
+public final class VarSlots {
+
+    /**
+     * 单个脚本的槽位上限
+     */
+    public static final int MAX = 256;
+
+    /**
+     * 正在解析的脚本的布局
+     */
+    private static final ThreadLocal<VarSlots> current = new ThreadLocal<>();
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    private String[] names = new String[8];
+    private int size;
+
+    /**
+     * 在当前正在解析的脚本中获取名称对应的槽位，不存在时分配
+     * 不在解析过程中（例如在代码中直接创建语句）时不分配
+     *
+     * @return 槽位，不在解析过程中或超出上限时返回 -1
+     */
+    public static int of(@NotNull String name) {
+        VarSlots layout = current.get();
+        return layout != null ? layout.allocate(name) : -1;
+    }
+
+    /**
+     * 以给定布局解析脚本，期间创建的语句通过 {@link #of(String)} 分配槽位
+     */
+    public static <T> T parse(@NotNull VarSlots layout, @NotNull Supplier<T> func) {
+        VarSlots previous = current.get();
+        current.set(layout);
+        try {
+            return func.get();
+        } finally {
+            if (previous != null) {
+                current.set(previous);
+            } else {
+                current.remove();
+            }
+        }
+    }
+
+    /**
+     * 获取脚本的布局
+     */
+    @Nullable
+    public static VarSlots layoutOf(@Nullable Quest quest) {
+        return quest instanceof SimpleQuest ? ((SimpleQuest) quest).getSlots() : null;
+    }
+
+    private int allocate(String name) {
+        Integer slot = slots.get(name);
+        if (slot != null) {
+            return slot;
+        }
+        if (size >= MAX) {
+            return -1;
+        }
+        if (size == names.length) {
+            names = Arrays.copyOf(names, Math.min(size * 2, MAX));
+        }
+        names[size] = name;
+        slots.put(name, size);
+        return size++;
+    }
+
+    /**
+     * 获取名称对应的槽位，不会分配
+     *
+     * @return 槽位，不存在时返回 -1
+     */
+    public int indexOf(@NotNull String name) {
+        Integer slot = slots.get(name);
+        return slot != null ? slot : -1;
+    }
+
+    /**
+     * 获取槽位对应的名称
+     */
+    public String nameOf(int slot) {
+        return names[slot];
+    }
+
+    /**
+     * 已分配的槽位数量
+     */
+    public int size() {
+        return size;
+    }
+}
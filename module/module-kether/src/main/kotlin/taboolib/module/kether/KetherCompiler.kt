@@ -0,0 +1,390 @@
+package taboolib.module.kether
+
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Label
+import org.objectweb.asm.MethodVisitor
+import org.objectweb.asm.Opcodes.*
+import org.objectweb.asm.Type
+import taboolib.library.kether.ParsedAction
+import taboolib.library.kether.QuestAction
+import taboolib.library.kether.QuestContext
+import taboolib.library.kether.SimpleQuest
+import taboolib.module.kether.action.ActionGet
+import taboolib.module.kether.action.ActionLiteral
+import taboolib.module.kether.action.ActionSet
+import taboolib.module.kether.action.transform.ActionCheck
+import taboolib.module.kether.action.transform.ActionMath
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * TabooLib
+ * taboolib.module.kether.KetherCompiler
+ *
+ * 将脚本中的语句块编译为字节码，每个语句块生成一个类，其中的顶层语句通过 tableswitch 分派
+ *
+ * 目前可以被编译的语句：
+ * 1. 常量（ActionLiteral）
+ * 2. 变量读取（&a，ActionGet）
+ * 3. 变量写入（set a to ...）
+ * 4. 比较（check）
+ * 5. 链式运算（math 1 + 2 * 3）
+ *
+ * 嵌套的其他语句在编译后的代码中通过 [Intrinsics.eval] 解释执行，因此只接受立即返回结果的语句（[Immediate]，如 actionNow），
+ * 可能需要等待的语句（即使 isSync 为 true，例如组合语句中包含需要等待的部分）所在的语句将保持原样
+ *
+ * @author agent
+ * @since 2026/10/17
+ */
+@Suppress("UNCHECKED_CAST")
+object KetherCompiler {
+
+    private val counter = AtomicInteger()
+
+    private val frameType = Type.getType(QuestContext.Frame::class.java)
+    private val objectType = Type.getType(Any::class.java)
+    private val intrinsicsName = Type.getInternalName(Intrinsics::class.java)
+    private val evalDesc = Type.getMethodDescriptor(objectType, Type.INT_TYPE, frameType)
+    private val guardDesc = Type.getMethodDescriptor(objectType, frameType)
+
+    /**
+     * 编译脚本
+     * 返回一个新的脚本，原脚本不会被修改，无法编译的脚本将原样返回
+     */
+    fun compile(script: Script): Script {
+        if (script !is SimpleQuest) {
+            return script
+        }
+        return try {
+            val blocks = script.blocks.mapValues { (label, block) -> SimpleQuest.SimpleBlock(label, compile(block.actions)) }
+            SimpleQuest(script.content, blocks, script.id, script.slots)
+        } catch (ex: Throwable) {
+            ex.printStackTrace()
+            script
+        }
+    }
+
+    private fun compile(actions: List<ParsedAction<*>>): List<ParsedAction<*>> {
+        val targets = actions.indices.filter { isCompilable(actions[it], true) }
+        if (targets.isEmpty()) {
+            return actions
+        }
+        val generator = Generator()
+        val block = generator.generate(targets.map { actions[it] })
+        return actions.mapIndexed { index, action ->
+            val i = targets.indexOf(index)
+            if (i == -1) action else ParsedAction(CompiledAction(action, block, i), HashMap(action.properties))
+        }
+    }
+
+    /**
+     * 是否可以被编译
+     * 顶层语句必须是已知的语句，嵌套的未知语句必须立即返回结果，编译后的代码因此永远不会在执行中途等待
+     */
+    private fun isCompilable(action: ParsedAction<*>, top: Boolean): Boolean {
+        return when (val a = action.action) {
+            // 顶层的常量与变量读取本身就可以同步执行，无需编译
+            is ActionLiteral<*>, is ActionGet<*> -> !top
+            // 嵌套的局部变量（~）写入的是子帧，编译后的代码无法保持一致
+            is ActionSet.ForConstant -> top || !a.key.startsWith("~")
+            is ActionSet.ForAction -> (top || !a.key.startsWith("~")) && isCompilable(a.action, false)
+            is ActionCheck -> isCompilable(a.left, false) && isCompilable(a.right, false)
+            is ActionMath.Chain -> a.actions.all { isCompilable(it, false) }
+            is Immediate -> !top && action.isSync
+            else -> false
+        }
+    }
+
+    /**
+     * 立即返回结果的语句，执行过程中不会等待
+     * 只有实现该接口的未知语句才会被嵌入编译后的代码
+     */
+    interface Immediate
+
+    /**
+     * 编译后的语句块
+     */
+    interface CompiledBlock {
+
+        /**
+         * 执行第 index 条被编译的语句
+         */
+        fun eval(index: Int, frame: QuestContext.Frame): Any?
+    }
+
+    /**
+     * 编译后的语句
+     */
+    class CompiledAction(val original: ParsedAction<*>, val block: CompiledBlock, val index: Int) : QuestAction<Any?>() {
+
+        override fun process(frame: QuestContext.Frame): CompletableFuture<Any?> {
+            val result = processSync(frame)
+            return if (result is QuestAction.Pending) result.future as CompletableFuture<Any?> else CompletableFuture.completedFuture(result)
+        }
+
+        override fun isSync(): Boolean {
+            return true
+        }
+
+        override fun processSync(frame: QuestContext.Frame): Any? {
+            return try {
+                block.eval(index, frame)
+            } catch (ex: Throwable) {
+                QuestAction.Pending.failed(ex)
+            }
+        }
+
+        override fun toString(): String {
+            return "CompiledAction(original=$original, index=$index)"
+        }
+    }
+
+    /**
+     * 编译后的代码调用的函数
+     */
+    object Intrinsics {
+
+        /** 解释执行语句（只会是嵌套的 [Immediate] 语句，与解释执行时一样在子帧中执行） */
+        @JvmStatic
+        fun eval(frame: QuestContext.Frame, action: ParsedAction<*>): Any? {
+            val result = action.processNested(frame)
+            if (result is QuestAction.Pending) {
+                val future = result.future
+                if (!future.isDone) {
+                    throw IllegalStateException("$action is not immediate")
+                }
+                try {
+                    return future.join()
+                } catch (ex: CompletionException) {
+                    throw ex.cause ?: ex
+                }
+            }
+            return result
+        }
+
+        /** 读取变量 */
+        @JvmStatic
+        fun get(frame: QuestContext.Frame, slot: Int, key: String): Any? {
+            return frame.variables().getOrNull<Any?>(slot, key)
+        }
+
+        /** 写入变量 */
+        @JvmStatic
+        fun set(frame: QuestContext.Frame, slot: Int, key: String, value: Any?): Any? {
+            frame.variables().set(slot, key, value)
+            return null
+        }
+
+        /** 比较 */
+        @JvmStatic
+        fun check(action: ActionCheck, left: Any?, right: Any?): Any {
+            return action.check(left, right)
+        }
+
+        /** 链式运算的初始值 */
+        @JvmStatic
+        fun base(value: Any?): Any {
+            return value.inferType() as Number
+        }
+
+        /** 链式运算的一步 */
+        @JvmStatic
+        fun math(action: ActionMath.Chain, index: Int, num: Any, value: Any?): Any {
+            return action.exec(num as Number, index, value)
+        }
+
+        /** 处理异常并返回默认值 */
+        @JvmStatic
+        fun recover(ex: Throwable, def: Any?): Any? {
+            ex.printStackTrace()
+            return def
+        }
+    }
+
+    private class Generator {
+
+        val name = Type.getInternalName(KetherCompiler::class.java) + "\$Block" + counter.incrementAndGet()
+        val constants = ArrayList<Any?>()
+        val guards = ArrayList<(MethodVisitor) -> Unit>()
+        val cw = object : ClassWriter(COMPUTE_FRAMES or COMPUTE_MAXS) {
+
+            override fun getCommonSuperClass(type1: String, type2: String): String {
+                return "java/lang/Object"
+            }
+        }
+
+        fun generate(actions: List<ParsedAction<*>>): CompiledBlock {
+            cw.visit(V1_8, ACC_PUBLIC or ACC_FINAL or ACC_SUPER, name, null, "java/lang/Object", arrayOf(Type.getInternalName(CompiledBlock::class.java)))
+            cw.visitField(ACC_PRIVATE or ACC_FINAL, "c", "[Ljava/lang/Object;", null, null).visitEnd()
+            // 构造函数
+            cw.visitMethod(ACC_PUBLIC, "<init>", "([Ljava/lang/Object;)V", null, null).apply {
+                visitCode()
+                visitVarInsn(ALOAD, 0)
+                visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false)
+                visitVarInsn(ALOAD, 0)
+                visitVarInsn(ALOAD, 1)
+                visitFieldInsn(PUTFIELD, name, "c", "[Ljava/lang/Object;")
+                visitInsn(RETURN)
+                visitMaxs(0, 0)
+                visitEnd()
+            }
+            // 分派
+            cw.visitMethod(ACC_PUBLIC, "eval", evalDesc, null, null).apply {
+                visitCode()
+                val end = Label()
+                val labels = Array(actions.size) { Label() }
+                visitVarInsn(ILOAD, 1)
+                visitTableSwitchInsn(0, actions.size - 1, end, *labels)
+                actions.forEachIndexed { index, action ->
+                    visitLabel(labels[index])
+                    emit(this, action)
+                    visitInsn(ARETURN)
+                }
+                visitLabel(end)
+                visitInsn(ACONST_NULL)
+                visitInsn(ARETURN)
+                visitMaxs(0, 0)
+                visitEnd()
+            }
+            // 带有异常处理的表达式，异常处理会清空操作数栈，因此需要独立的函数
+            var i = 0
+            while (i < guards.size) {
+                cw.visitMethod(ACC_PRIVATE, "g$i", guardDesc, null, null).apply {
+                    visitCode()
+                    guards[i](this)
+                    visitMaxs(0, 0)
+                    visitEnd()
+                }
+                i++
+            }
+            cw.visitEnd()
+            val bytes = cw.toByteArray()
+            val cls = Loader(KetherCompiler::class.java.classLoader).define(name.replace('/', '.'), bytes)
+            return cls.getConstructor(Array<Any>::class.java).newInstance(constants.toTypedArray()) as CompiledBlock
+        }
+
+        /**
+         * 生成表达式，执行后在栈顶留下一个对象
+         * 局部变量 0 为 this，1 为 frame
+         */
+        fun emit(mv: MethodVisitor, action: ParsedAction<*>) {
+            when (val a = action.action) {
+                is ActionLiteral<*> -> {
+                    if (a.value is String) mv.visitLdcInsn(a.value) else constant(mv, a.value)
+                }
+                is ActionGet<*> -> {
+                    mv.visitVarInsn(ALOAD, 1)
+                    mv.visitLdcInsn(a.slot)
+                    mv.visitLdcInsn(a.key)
+                    intrinsic(mv, "get", frameType, Type.INT_TYPE, Type.getType(String::class.java))
+                }
+                is ActionSet.ForConstant -> {
+                    mv.visitVarInsn(ALOAD, 1)
+                    mv.visitLdcInsn(a.slot)
+                    mv.visitLdcInsn(a.key)
+                    if (a.value == null || a.value == "null") mv.visitInsn(ACONST_NULL) else mv.visitLdcInsn(a.value)
+                    intrinsic(mv, "set", frameType, Type.INT_TYPE, Type.getType(String::class.java), objectType)
+                }
+                is ActionSet.ForAction -> {
+                    guard(mv, null, false) {
+                        it.visitVarInsn(ALOAD, 1)
+                        it.visitLdcInsn(a.slot)
+                        it.visitLdcInsn(a.key)
+                        emit(it, a.action)
+                        intrinsic(it, "set", frameType, Type.INT_TYPE, Type.getType(String::class.java), objectType)
+                    }
+                }
+                is ActionCheck -> {
+                    constant(mv, a, ActionCheck::class.java)
+                    emit(mv, a.left)
+                    emit(mv, a.right)
+                    intrinsic(mv, "check", Type.getType(ActionCheck::class.java), objectType, objectType)
+                }
+                is ActionMath.Chain -> {
+                    // 初始值的异常不会被处理
+                    emit(mv, a.actions[0])
+                    intrinsic(mv, "base", objectType)
+                    guard(mv, 0, true) {
+                        // 初始值由调用者传入
+                        it.visitVarInsn(ALOAD, 2)
+                        for (index in 1 until a.actions.size) {
+                            it.visitVarInsn(ASTORE, 3)
+                            constant(it, a, ActionMath.Chain::class.java)
+                            it.visitLdcInsn(index)
+                            it.visitVarInsn(ALOAD, 3)
+                            emit(it, a.actions[index])
+                            intrinsic(it, "math", Type.getType(ActionMath.Chain::class.java), Type.INT_TYPE, objectType, objectType)
+                        }
+                    }
+                }
+                else -> {
+                    mv.visitVarInsn(ALOAD, 1)
+                    constant(mv, action, ParsedAction::class.java)
+                    intrinsic(mv, "eval", frameType, Type.getType(ParsedAction::class.java))
+                }
+            }
+        }
+
+        /**
+         * 生成带有异常处理的表达式，发生异常时返回默认值
+         * withArg 为 true 时，调用前栈顶的对象会作为局部变量 2 传入
+         */
+        fun guard(mv: MethodVisitor, def: Any?, withArg: Boolean, body: (MethodVisitor) -> Unit) {
+            val index = guards.size
+            val desc = if (withArg) Type.getMethodDescriptor(objectType, frameType, objectType) else guardDesc
+            guards += { m ->
+                val start = Label()
+                val end = Label()
+                val handler = Label()
+                m.visitTryCatchBlock(start, end, handler, "java/lang/Throwable")
+                m.visitLabel(start)
+                body(m)
+                m.visitInsn(ARETURN)
+                m.visitLabel(end)
+                m.visitLabel(handler)
+                if (def == null) m.visitInsn(ACONST_NULL) else constant(m, def)
+                intrinsic(m, "recover", Type.getType(Throwable::class.java), objectType)
+                m.visitInsn(ARETURN)
+            }
+            // 调用
+            if (withArg) {
+                // 栈：value -> this, frame, value
+                mv.visitVarInsn(ALOAD, 0)
+                mv.visitInsn(SWAP)
+                mv.visitVarInsn(ALOAD, 1)
+                mv.visitInsn(SWAP)
+            } else {
+                mv.visitVarInsn(ALOAD, 0)
+                mv.visitVarInsn(ALOAD, 1)
+            }
+            mv.visitMethodInsn(INVOKESPECIAL, name, "g$index", desc, false)
+        }
+
+        /**
+         * 从常量表中读取对象
+         */
+        fun constant(mv: MethodVisitor, value: Any?, type: Class<*>? = null) {
+            val index = constants.size
+            constants += value
+            mv.visitVarInsn(ALOAD, 0)
+            mv.visitFieldInsn(GETFIELD, name, "c", "[Ljava/lang/Object;")
+            mv.visitLdcInsn(index)
+            mv.visitInsn(AALOAD)
+            if (type != null) {
+                mv.visitTypeInsn(CHECKCAST, Type.getInternalName(type))
+            }
+        }
+
+        fun intrinsic(mv: MethodVisitor, method: String, vararg args: Type) {
+            mv.visitMethodInsn(INVOKESTATIC, intrinsicsName, method, Type.getMethodDescriptor(objectType, *args), false)
+        }
+    }
+
+    private class Loader(parent: ClassLoader) : ClassLoader(parent) {
+
+        fun define(name: String, bytes: ByteArray): Class<*> {
+            return defineClass(name, bytes, 0, bytes.size)
+        }
+    }
+}
@@ -19,6 +19,67 @@ object KetherFunction {
         return if (options.sandbox) runKether(detailError = options.detailError) { process() } ?: "ERROR" else process()
     }
 
+    /**
+     * 预编译模板，其中的脚本只会解析一次
+     * 编译时使用 options 中的命名空间、缓存与编译选项，执行者与变量在渲染时指定
+     */
+    fun compile(input: String, options: ScriptOptions = ScriptOptions()): Template {
+        val parts = reader.compile(input).segments.map { segment ->
+            when {
+                segment is VariableReader.Segment.Literal -> Part.Literal(segment.text)
+                // 嵌套变量的内容在渲染时才能确定
+                segment is VariableReader.Segment.Variable && segment.segments.all { it is VariableReader.Segment.Literal } -> {
+                    val source = segment.segments.joinToString("") { (it as VariableReader.Segment.Literal).text }
+                    Part.Inline(KetherShell.parse(source, options.useCache, options.namespace, options.cache, options.compile))
+                }
+                else -> Part.Dynamic(VariableReader.Template(listOf(segment)))
+            }
+        }
+        return Template(input, parts, options)
+    }
+
+    /**
+     * 预编译模板
+     */
+    class Template(val source: String, val parts: List<Part>, private val compiled: ScriptOptions) {
+
+        /**
+         * 渲染模板
+         */
+        fun render(options: ScriptOptions = compiled): String {
+            fun process(): String {
+                val builder = StringBuilder(source.length)
+                for (part in parts) {
+                    when (part) {
+                        is Part.Literal -> builder.append(part.text)
+                        is Part.Inline -> builder.append(KetherShell.createContext(part.script, options.sender, options.vars, options.context).runActionsNow())
+                        is Part.Dynamic -> part.template.render(builder) {
+                            val script = KetherShell.parse(this, compiled.useCache, compiled.namespace, compiled.cache, compiled.compile)
+                            KetherShell.createContext(script, options.sender, options.vars, options.context).runActionsNow().toString()
+                        }
+                    }
+                }
+                return builder.toString()
+            }
+            return if (options.sandbox) runKether(detailError = options.detailError) { process() } ?: "ERROR" else process()
+        }
+    }
+
+    /**
+     * 模板片段
+     */
+    sealed class Part {
+
+        /** 文本 */
+        class Literal(val text: String) : Part()
+
+        /** 已解析的脚本 */
+        class Inline(val script: Script) : Part()
+
+        /** 包含嵌套变量的脚本，在渲染时解析 */
+        class Dynamic(val template: VariableReader.Template) : Part()
+    }
+
     @Deprecated(
         "use parse(input: String, options: ScriptOptions = ScriptOptions()) instead", ReplaceWith(
             "parse(input, ScriptOptions.builder().namespace(namespace).sender(sender).build())",
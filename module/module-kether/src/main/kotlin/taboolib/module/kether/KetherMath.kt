@@ -8,15 +8,40 @@ fun List<Any>.isAllInt(): Boolean {
 }
 
 /**
- * 是否为整数
+ * 是否为整数，判定方式与 Integer.parseInt 相同，但不会抛出异常
  */
 fun Any.isInt(): Boolean {
-    return try {
-        Integer.parseInt(toString())
-        true
-    } catch (ex: Exception) {
-        false
+    return this is Int || toString().toIntOrNull() != null
+}
+
+/**
+ * 转换仅由 ASCII 数字（以及开头的负号）组成的整数，其他情况返回 null
+ * 对于能够转换的字符串，结果与 Coerce.toInteger 相同
+ */
+fun String.toPlainIntOrNull(): Int? {
+    if (isEmpty()) {
+        return null
+    }
+    val negative = this[0] == '-'
+    var index = if (negative) 1 else 0
+    if (index == length) {
+        return null
+    }
+    var value = 0L
+    while (index < length) {
+        val c = this[index++]
+        if (c < '0' || c > '9') {
+            return null
+        }
+        value = value * 10 + (c - '0')
+        if (value > Int.MAX_VALUE + 1L) {
+            return null
+        }
+    }
+    if (negative) {
+        value = -value
     }
+    return if (value in Int.MIN_VALUE..Int.MAX_VALUE) value.toInt() else null
 }
 
 inline fun <T> Iterable<T>.subBy(selector: (T) -> Int): Int {
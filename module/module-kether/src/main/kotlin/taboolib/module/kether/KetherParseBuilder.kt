@@ -39,12 +39,20 @@ fun QuestReader.switch(func: ExpectDSL.() -> Unit): ScriptAction<*> {
 }
 
 fun actionNow(name: String = "actionNow", func: QuestContext.Frame.() -> Any?): ScriptAction<Any?> {
-    return object : ScriptAction<Any?>() {
+    return object : ScriptAction<Any?>(), KetherCompiler.Immediate {
 
         override fun run(frame: ScriptFrame): CompletableFuture<Any?> {
             return CompletableFuture.completedFuture(func(frame))
         }
 
+        override fun isSync(): Boolean {
+            return true
+        }
+
+        override fun processSync(frame: ScriptFrame): Any? {
+            return func(frame)
+        }
+
         override fun toString(): String {
             return "KetherDSL($name)"
         }
@@ -0,0 +1,174 @@
+package taboolib.module.kether
+
+import com.google.common.cache.CacheBuilder
+import taboolib.common.LifeCycle
+import taboolib.common.platform.Awake
+import taboolib.common.platform.function.info
+import taboolib.library.kether.ActionProperties
+import taboolib.library.kether.ParsedAction
+import taboolib.library.kether.Quest
+import taboolib.library.kether.QuestContext
+import taboolib.library.kether.QuestProfiler
+import java.io.File
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * TabooLib
+ * taboolib.module.kether.KetherProfiler
+ *
+ * Kether 分析器，记录每种动作、每个语句块的执行次数与耗时，以及挂起动作从挂起到完成的延迟
+ * 通过 env.properties 中的 enable-kether-profiler 开启，关闭时执行过程中只有一次静态常量判断
+ *
+ * 嵌套的动作同样会被记录，其耗时同时计入所属的动作
+ *
+ * @author agent
+ * @since 2026/10/17
+ */
+object KetherProfiler : QuestProfiler {
+
+    /** 是否启用 */
+    @JvmField
+    val ENABLED = QuestProfiler.ENABLED
+
+    /** 执行追踪，仅在启用时调用 */
+    @Volatile
+    var tracer: Tracer? = null
+
+    private val actions = ConcurrentHashMap<String, Record>()
+    private val suspends = ConcurrentHashMap<String, Record>()
+    private val blocks: ConcurrentMap<Quest.Block, Record> = CacheBuilder.newBuilder().weakKeys().build<Quest.Block, Record>().asMap()
+
+    /**
+     * 记录动作的执行
+     *
+     * @param time 耗时（纳秒），挂起的动作只计算挂起前的部分
+     */
+    override fun action(frame: QuestContext.Frame, action: ParsedAction<*>, time: Long) {
+        actions.computeIfAbsent(nameOf(action)) { Record(it) }.add(time)
+        tracer?.trace(frame, action, time, false)
+    }
+
+    /**
+     * 记录语句块的执行
+     *
+     * @param time 从进入语句块到离开（或执行完毕）的耗时（纳秒），包含挂起的时间
+     */
+    override fun block(frame: QuestContext.Frame, block: Quest.Block, time: Long) {
+        blocks.computeIfAbsent(block) { Record("${frame.context().quest.id}:${it.label}") }.add(time)
+    }
+
+    /**
+     * 记录挂起的动作从开始执行到完成的延迟
+     */
+    override fun suspend(frame: QuestContext.Frame, action: ParsedAction<*>, time: Long) {
+        suspends.computeIfAbsent(nameOf(action)) { Record(it) }.add(time)
+        tracer?.trace(frame, action, time, true)
+    }
+
+    @Awake(LifeCycle.CONST)
+    private fun register() {
+        QuestProfiler.register(this)
+    }
+
+    /**
+     * 获取动作的名称
+     * 组合语句与 actionNow 等语句共用同一个类，因此优先使用注册名称，其次是 actionNow 等匿名语句的 toString（KetherDSL(name)）
+     */
+    private fun nameOf(action: ParsedAction<*>): String {
+        if (action.has(ActionProperties.NAME)) {
+            return action.get(ActionProperties.NAME)
+        }
+        val a = action.action
+        return if (a is ScriptAction<*> && a.javaClass.isAnonymousClass) a.toString() else a.javaClass.name
+    }
+
+    /** 获取每种动作的执行记录 */
+    fun getActions(): List<Snapshot> {
+        return actions.values.map { it.snapshot() }
+    }
+
+    /** 获取每个语句块的执行记录 */
+    fun getBlocks(): List<Snapshot> {
+        return blocks.values.map { it.snapshot() }
+    }
+
+    /** 获取挂起动作的完成延迟 */
+    fun getSuspends(): List<Snapshot> {
+        return suspends.values.map { it.snapshot() }
+    }
+
+    /** 清空记录 */
+    fun reset() {
+        actions.clear()
+        suspends.clear()
+        blocks.clear()
+    }
+
+    /**
+     * 生成报告，各部分按总耗时排序
+     *
+     * @param top 每部分最多显示的条目数
+     */
+    fun report(top: Int = 20): List<String> {
+        val lines = ArrayList<String>()
+        fun section(title: String, records: List<Snapshot>) {
+            lines += "$title:"
+            records.sortedByDescending { it.total }.take(top).forEach {
+                lines += " = %10.3fms total %8.3fms max x%-8s %s".format(it.total / 1_000_000.0, it.max / 1_000_000.0, it.count, it.name)
+            }
+        }
+        section("Actions", getActions())
+        section("Blocks", getBlocks())
+        section("Suspended actions", getSuspends())
+        return lines
+    }
+
+    /**
+     * 输出报告到控制台，指定文件时同时写入文件
+     */
+    fun dump(top: Int = 20, file: File? = null) {
+        val report = report(top)
+        report.forEach { info(it) }
+        if (file != null) {
+            file.parentFile?.mkdirs()
+            file.writeText(report.joinToString("\n"))
+        }
+    }
+
+    /**
+     * 执行追踪
+     */
+    fun interface Tracer {
+
+        /**
+         * @param time 耗时（纳秒）
+         * @param completed 是否为挂起的动作完成
+         */
+        fun trace(frame: QuestContext.Frame, action: ParsedAction<*>, time: Long, completed: Boolean)
+    }
+
+    /**
+     * 执行记录
+     */
+    data class Snapshot(val name: String, val count: Long, val total: Long, val max: Long)
+
+    private class Record(val name: String) {
+
+        val count = LongAdder()
+        val total = LongAdder()
+        val max = AtomicLong()
+
+        fun add(time: Long) {
+            count.increment()
+            total.add(time)
+            max.accumulateAndGet(time) { a, b -> maxOf(a, b) }
+        }
+
+        fun snapshot(): Snapshot {
+            return Snapshot(name, count.sum(), total.sum(), max.get())
+        }
+    }
+}
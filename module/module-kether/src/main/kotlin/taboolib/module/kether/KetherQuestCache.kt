@@ -0,0 +1,459 @@
+package taboolib.module.kether
+
+import taboolib.common.PrimitiveSettings
+import taboolib.common.platform.function.pluginId
+import taboolib.common.platform.function.warning
+import taboolib.library.kether.ActionProperties
+import taboolib.library.kether.BlockReader
+import taboolib.library.kether.ParsedAction
+import taboolib.library.kether.Quest
+import taboolib.library.kether.QuestAction
+import taboolib.library.kether.QuestService
+import taboolib.library.kether.SimpleQuest
+import taboolib.library.kether.SimpleReader
+import taboolib.library.kether.VarSlots
+import taboolib.module.kether.action.ActionAll
+import taboolib.module.kether.action.ActionGet
+import taboolib.module.kether.action.ActionIf
+import taboolib.module.kether.action.ActionLiteral
+import taboolib.module.kether.action.ActionNot
+import taboolib.module.kether.action.ActionProperty
+import taboolib.module.kether.action.ActionSet
+import taboolib.module.kether.action.loop.ActionFor
+import taboolib.module.kether.action.loop.ActionJoin
+import taboolib.module.kether.action.loop.ActionMap
+import taboolib.module.kether.action.loop.ActionWhile
+import taboolib.module.kether.action.transform.ActionCheck
+import taboolib.module.kether.action.transform.ActionMath
+import taboolib.module.kether.action.transform.ActionType
+import java.io.*
+import java.nio.file.AtomicMoveNotSupportedException
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.security.MessageDigest
+import java.util.*
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * TabooLib
+ * taboolib.module.kether.KetherQuestCache
+ *
+ * 解析后脚本的磁盘缓存，通过 env.properties 中的 enable-kether-quest-cache 开启
+ * 缓存文件位于 cache/taboolib/kether/[插件名]，以动作编号与参数的形式保存语句树
+ *
+ * 以下任意一项发生变化时缓存失效：
+ * 1. 脚本源码
+ * 2. 命名空间与已注册的解析器
+ * 3. TabooLib 版本
+ *
+ * 没有注册编码方式的动作（例如由组合解析器生成的动作）只保存其在源码中的起始位置，读取时从该位置重新解析，其中的子动作也随之重新解析
+ * 因此常用的语句（流程控制、运算与类型转换）都应注册编码方式，见 TestKetherQuestCache
+ * 其他模块可以通过 [register] 为自己的动作注册编码方式
+ * 仍然无法保存的脚本只写入文件头作为标记，之后不再尝试保存
+ *
+ * @author agent
+ * @since 2026/10/17
+ */
+@Suppress("UNCHECKED_CAST")
+object KetherQuestCache {
+
+    /** 是否启用 */
+    @JvmField
+    val ENABLED = PrimitiveSettings.RUNTIME_PROPERTIES.getProperty("enable-kether-quest-cache", "false") == "true"
+
+    /** 缓存目录 */
+    val folder by lazy { File("cache/taboolib/kether/$pluginId") }
+
+    private const val MAGIC = 0x4B514331
+    private const val FORMAT = 3
+
+    private val codecs = ConcurrentHashMap<Class<*>, Codec<QuestAction<*>>>()
+    private val codecsById = ConcurrentHashMap<String, Codec<QuestAction<*>>>()
+
+    /**
+     * 注册动作的编码方式
+     *
+     * @param id 动作编号，写入缓存文件，不可重复
+     */
+    fun <T : QuestAction<*>> register(id: String, type: Class<T>, write: Output.(T) -> Unit, read: Input.() -> T) {
+        val codec = Codec(id, write as Output.(QuestAction<*>) -> Unit, read)
+        codecs[type] = codec
+        codecsById[id] = codec
+    }
+
+    /**
+     * 计算命名空间与已注册解析器的指纹
+     */
+    fun fingerprint(namespace: List<String>): Long {
+        val registry = ScriptService.getRegistry()
+        val digest = MessageDigest.getInstance("SHA-1")
+        digest.update(namespace.joinToString(",").toByteArray())
+        registry.registeredNamespace.sorted().forEach { ns ->
+            registry.getRegisteredActions(ns).sorted().forEach { id ->
+                val parser = registry.getParser(id, ns).orElse(null)
+                digest.update("$ns:$id=${parser?.javaClass?.name};".toByteArray())
+            }
+        }
+        val hash = digest.digest()
+        var value = 0L
+        for (i in 0 until 8) {
+            value = (value shl 8) or (hash[i].toLong() and 0xFF)
+        }
+        return value
+    }
+
+    /**
+     * 读取缓存的脚本，缓存不存在或已失效时解析并写入缓存
+     *
+     * @param source 脚本源码
+     * @param hash 脚本文件的 SHA-1，由调用方计算，只要能唯一对应源码即可
+     * @param namespace 解析时使用的命名空间
+     * @param fingerprint 见 [fingerprint]
+     * @param parse 解析函数
+     */
+    fun load(id: String, source: ByteArray, hash: ByteArray, namespace: List<String>, fingerprint: Long, parse: () -> Script): Script {
+        if (!ENABLED) {
+            return parse()
+        }
+        val file = File(folder, "$id.cache")
+        if (file.exists()) {
+            var unsupported = false
+            try {
+                DataInputStream(BufferedInputStream(FileInputStream(file))).use { stream ->
+                    if (readHeader(stream, fingerprint, hash)) {
+                        if (stream.readBoolean()) {
+                            return Input(stream, namespace).readQuest(id, source)
+                        }
+                        unsupported = true
+                    }
+                }
+            } catch (ex: Throwable) {
+                // 缓存损坏，重新解析
+                warning("Failed to read kether quest cache $file: $ex")
+            }
+            // 已知无法保存
+            if (unsupported) {
+                return parse()
+            }
+        }
+        val script = parse()
+        try {
+            write(file, script, fingerprint, hash)
+        } catch (ex: IOException) {
+            warning("Failed to write kether quest cache $file: $ex")
+        }
+        return script
+    }
+
+    private fun write(file: File, script: Script, fingerprint: Long, hash: ByteArray) {
+        if (script !is SimpleQuest) {
+            return
+        }
+        val bytes = ByteArrayOutputStream()
+        DataOutputStream(bytes).use { stream ->
+            writeHeader(stream, fingerprint, hash)
+            try {
+                val body = ByteArrayOutputStream()
+                DataOutputStream(body).use { Output(it).writeQuest(script) }
+                stream.writeBoolean(true)
+                stream.write(body.toByteArray())
+            } catch (ex: Unsupported) {
+                // 包含无法保存的动作，只写入标记
+                stream.writeBoolean(false)
+            }
+        }
+        // 写入临时文件后替换，避免其他进程读到不完整的文件
+        file.parentFile.mkdirs()
+        val temp = File.createTempFile(file.name, ".tmp", file.parentFile)
+        try {
+            temp.writeBytes(bytes.toByteArray())
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING)
+            } catch (ex: AtomicMoveNotSupportedException) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING)
+            }
+        } finally {
+            temp.delete()
+        }
+    }
+
+    private fun writeHeader(stream: DataOutputStream, fingerprint: Long, hash: ByteArray) {
+        stream.writeInt(MAGIC)
+        stream.writeInt(FORMAT)
+        stream.writeUTF(PrimitiveSettings.TABOOLIB_VERSION)
+        stream.writeLong(fingerprint)
+        stream.writeShort(hash.size)
+        stream.write(hash)
+    }
+
+    private fun readHeader(stream: DataInputStream, fingerprint: Long, hash: ByteArray): Boolean {
+        if (stream.readInt() != MAGIC || stream.readInt() != FORMAT) {
+            return false
+        }
+        if (stream.readUTF() != PrimitiveSettings.TABOOLIB_VERSION || stream.readLong() != fingerprint) {
+            return false
+        }
+        val bytes = ByteArray(stream.readShort().toInt())
+        stream.readFully(bytes)
+        return bytes.contentEquals(hash)
+    }
+
+    /**
+     * 写入语句树
+     * 同一个 ParsedAction 可能出现在多个位置（例如匿名语句块的首个动作），只会写入一次，之后以引用代替
+     *
+     * 只写入具名语句块，以及被已写入的动作引用的匿名语句块
+     * 重新解析的动作所包含的匿名语句块会在读取时随之重新生成，因此不会被写入
+     */
+    class Output(val stream: DataOutputStream) {
+
+        private val refs = IdentityHashMap<ParsedAction<*>, Int>()
+        private val pending = LinkedList<Quest.Block>()
+        private val written = HashSet<String>()
+
+        private lateinit var quest: SimpleQuest
+
+        fun writeQuest(quest: SimpleQuest) {
+            this.quest = quest
+            quest.blocks.values.forEach { block ->
+                // 匿名语句块的名称见 BlockReader.nextAnonymousBlockName
+                if (!block.label.contains("_anon_")) {
+                    enqueue(block.label)
+                }
+            }
+            while (pending.isNotEmpty()) {
+                val block = pending.poll()
+                stream.writeBoolean(true)
+                stream.writeUTF(block.label)
+                writeActions(block.actions)
+            }
+            stream.writeBoolean(false)
+        }
+
+        fun writeAction(action: ParsedAction<*>) {
+            val ref = refs[action]
+            if (ref != null) {
+                stream.writeByte(1)
+                stream.writeInt(ref)
+                return
+            }
+            val codec = codecs[action.action.javaClass]
+            if (codec != null) {
+                stream.writeByte(0)
+                stream.writeUTF(codec.id)
+                codec.write(this, action.action)
+            } else {
+                // 没有编码方式，记录起始位置
+                val index = action.get(ActionProperties.INDEX, null) ?: throw Unsupported()
+                stream.writeByte(2)
+                stream.writeInt(index)
+            }
+            stream.writeInt(action.properties.size)
+            action.properties.forEach { (key, value) ->
+                stream.writeUTF(key)
+                when (value) {
+                    is String -> {
+                        stream.writeByte(0)
+                        stream.writeUTF(value)
+                    }
+                    is Boolean -> {
+                        stream.writeByte(1)
+                        stream.writeBoolean(value)
+                    }
+                    is Int -> {
+                        stream.writeByte(2)
+                        stream.writeInt(value)
+                    }
+                    else -> throw Unsupported()
+                }
+            }
+            refs[action] = refs.size
+            // 匿名语句块随其首个动作写入
+            if (action.has(ActionProperties.BLOCK)) {
+                enqueue(action.get(ActionProperties.BLOCK))
+            }
+        }
+
+        private fun enqueue(label: String) {
+            if (written.add(label)) {
+                quest.getBlock(label).ifPresent { pending += it }
+            }
+        }
+
+        fun writeActions(actions: List<ParsedAction<*>>) {
+            stream.writeInt(actions.size)
+            actions.forEach { writeAction(it) }
+        }
+
+        fun writeString(value: String?) {
+            stream.writeBoolean(value != null)
+            if (value != null) {
+                stream.writeUTF(value)
+            }
+        }
+    }
+
+    /**
+     * 读取语句树
+     */
+    class Input(val stream: DataInputStream, val namespace: List<String>) {
+
+        private val refs = ArrayList<ParsedAction<*>>()
+        private val blocks = HashMap<String, Quest.Block>()
+
+        /** 从源码中重新解析的动作数量 */
+        var reparsed = 0
+            private set
+
+        private lateinit var content: CharArray
+        private lateinit var label: String
+
+        fun readQuest(id: String, source: ByteArray): Script {
+            content = String(source, Charsets.UTF_8).toCharArray()
+            // 与解析时相同，重新创建的语句在新的布局中分配槽位
+            val slots = VarSlots()
+            return VarSlots.parse(slots) {
+                while (stream.readBoolean()) {
+                    label = stream.readUTF()
+                    blocks[label] = SimpleQuest.SimpleBlock(label, readActions())
+                }
+                SimpleQuest(content, blocks, id, slots)
+            }
+        }
+
+        fun readAction(): ParsedAction<*> {
+            val action = when (stream.readByte().toInt()) {
+                0 -> {
+                    val codec = codecsById[stream.readUTF()] ?: throw IOException("Unknown action")
+                    codec.read(this)
+                }
+                1 -> return refs[stream.readInt()]
+                2 -> reparse(stream.readInt())
+                else -> throw IOException("Unknown action")
+            }
+            val properties = HashMap<String, Any>()
+            repeat(stream.readInt()) {
+                val key = stream.readUTF()
+                properties[key] = when (stream.readByte().toInt()) {
+                    0 -> stream.readUTF()
+                    1 -> stream.readBoolean()
+                    2 -> stream.readInt()
+                    else -> throw IOException("Unknown property")
+                }
+            }
+            return ParsedAction(action, properties).also { refs += it }
+        }
+
+        fun readActions(): List<ParsedAction<*>> {
+            return List(stream.readInt()) { readAction() }
+        }
+
+        /**
+         * 从源码中的指定位置重新解析动作，其中的匿名语句块直接加入脚本
+         */
+        private fun reparse(index: Int): QuestAction<*> {
+            reparsed++
+            val reader = object : BlockReader(content, index, index, blocks, ScriptService, namespace, label) {
+
+                override fun newActionReader(service: QuestService<*>, namespace: MutableList<String>): SimpleReader {
+                    return KetherScriptLoader.Reader(service, this, namespace)
+                }
+            }
+            return KetherScriptLoader.Reader(ScriptService, reader, namespace.toMutableList()).nextAction<Any?>().action
+        }
+
+        fun readString(): String? {
+            return if (stream.readBoolean()) stream.readUTF() else null
+        }
+    }
+
+    private class Codec<T : QuestAction<*>>(val id: String, val write: Output.(T) -> Unit, val read: Input.() -> T)
+
+    private class Unsupported : RuntimeException(null, null, false, false)
+
+    init {
+        register("literal", ActionLiteral::class.java, {
+            when (val value = it.value) {
+                is String -> {
+                    stream.writeByte(0)
+                    stream.writeUTF(value)
+                    stream.writeBoolean(it.isMisspelled)
+                }
+                is Int -> {
+                    stream.writeByte(1)
+                    stream.writeInt(value)
+                }
+                is Long -> {
+                    stream.writeByte(2)
+                    stream.writeLong(value)
+                }
+                is Double -> {
+                    stream.writeByte(3)
+                    stream.writeDouble(value)
+                }
+                is Boolean -> {
+                    stream.writeByte(4)
+                    stream.writeBoolean(value)
+                }
+                else -> throw Unsupported()
+            }
+        }, {
+            when (stream.readByte().toInt()) {
+                0 -> ActionLiteral<Any?>(stream.readUTF(), stream.readBoolean())
+                1 -> ActionLiteral<Any?>(stream.readInt() as Any)
+                2 -> ActionLiteral<Any?>(stream.readLong() as Any)
+                3 -> ActionLiteral<Any?>(stream.readDouble() as Any)
+                4 -> ActionLiteral<Any?>(stream.readBoolean() as Any)
+                else -> throw IOException("Unknown literal")
+            }
+        })
+        register("get", ActionGet::class.java, { stream.writeUTF(it.key) }, { ActionGet<Any?>(stream.readUTF()) })
+        register("set:constant", ActionSet.ForConstant::class.java, { stream.writeUTF(it.key); writeString(it.value) }, { ActionSet.ForConstant(stream.readUTF(), readString()) })
+        register("set:action", ActionSet.ForAction::class.java, { stream.writeUTF(it.key); writeAction(it.action) }, { ActionSet.ForAction(stream.readUTF(), readAction()) })
+        register("check", ActionCheck::class.java, {
+            writeAction(it.left)
+            stream.writeUTF(it.symbol)
+            writeAction(it.right)
+        }, { ActionCheck(readAction(), stream.readUTF(), readAction()) })
+        register("math:chain", ActionMath.Chain::class.java, {
+            writeActions(it.actions)
+            stream.writeInt(it.symbols.size)
+            it.symbols.forEach { s -> stream.writeUTF(s.name) }
+        }, { ActionMath.Chain(readActions(), List(stream.readInt()) { ActionMath.Type.valueOf(stream.readUTF()) }) })
+        register("math", ActionMath::class.java, {
+            stream.writeUTF(it.type.name)
+            writeActions(it.array)
+        }, { ActionMath(ActionMath.Type.valueOf(stream.readUTF()), readActions()) })
+        register("type", ActionType.ActionType::class.java, { stream.writeUTF(it.any) }, { ActionType.ActionType(stream.readUTF()) })
+        register("type:to", ActionType.ActionTypeTo::class.java, {
+            stream.writeUTF(it.to.name)
+            writeAction(it.action)
+        }, { ActionType.ActionTypeTo(ActionType.TypeTo.valueOf(stream.readUTF()), readAction()) })
+        register("if", ActionIf::class.java, {
+            writeAction(it.condition)
+            writeAction(it.then)
+            stream.writeBoolean(it.orElse != null)
+            it.orElse?.let { e -> writeAction(e) }
+        }, { ActionIf(readAction(), readAction(), if (stream.readBoolean()) readAction() else null) })
+        register("not", ActionNot::class.java, { writeAction(it.condition) }, { ActionNot(readAction()) })
+        register("all", ActionAll::class.java, { writeActions(it.actions); stream.writeBoolean(it.any) }, { ActionAll(readActions(), stream.readBoolean()) })
+        register("while", ActionWhile::class.java, { writeAction(it.condition); writeAction(it.action) }, { ActionWhile(readAction(), readAction()) })
+        register("for", ActionFor::class.java, {
+            stream.writeUTF(it.key)
+            writeAction(it.values)
+            writeAction(it.action)
+        }, { ActionFor(stream.readUTF(), readAction(), readAction()) })
+        register("map", ActionMap::class.java, {
+            stream.writeUTF(it.key)
+            writeAction(it.values)
+            writeAction(it.action)
+        }, { ActionMap(stream.readUTF(), readAction(), readAction()) })
+        register("join", ActionJoin::class.java, { writeActions(it.source); writeAction(it.separator) }, { ActionJoin(readActions(), readAction()) })
+        register("property:get", ActionProperty.Get::class.java, { writeAction(it.instance); stream.writeUTF(it.key) }, { ActionProperty.Get(readAction(), stream.readUTF()) })
+        register("property:set", ActionProperty.Set::class.java, {
+            writeAction(it.instance)
+            stream.writeUTF(it.key)
+            writeAction(it.value)
+        }, { ActionProperty.Set(readAction(), stream.readUTF(), readAction()) })
+    }
+}
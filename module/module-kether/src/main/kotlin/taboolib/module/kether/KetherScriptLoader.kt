@@ -38,6 +38,7 @@ class KetherScriptLoader : SimpleQuestLoader() {
         @Suppress("UNCHECKED_CAST")
         override fun <T : Any?> nextAction(): ParsedAction<T> {
             skipBlank()
+            val start = index
             return when (peek()) {
                 '{' -> {
                     blockParser.setProperty("index", index)
@@ -69,7 +70,7 @@ class KetherScriptLoader : SimpleQuestLoader() {
                         val optional = service.registry.getParser(element, namespace)
                         if (optional.isPresent) {
                             val propertyKey = token.substring(i + 1, token.length - 1)
-                            return wrap(ActionProperty.Get(wrap(optional.get().resolve<Any>(this)), propertyKey)) as ParsedAction<T>
+                            return wrap(ActionProperty.Get(wrap(optional.get().resolve<Any>(this), element), propertyKey)) as ParsedAction<T>
                         } else if (Kether.isAllowToleranceParser) {
                             val propertyKey = token.substring(i + 1, token.length - 1)
                             return wrap(ActionProperty.Get(wrap(ActionLiteral<Any>(element, true)), propertyKey)) as ParsedAction<T>
@@ -78,7 +79,12 @@ class KetherScriptLoader : SimpleQuestLoader() {
                     } else {
                         val optional = service.registry.getParser(token, namespace)
                         if (optional.isPresent) {
-                            return wrap(optional.get().resolve(this))
+                            val action = wrap(optional.get().resolve<T>(this), token)
+                            // 记录起始位置，缓存时以此重新解析
+                            if (KetherQuestCache.ENABLED) {
+                                action.set(ActionProperties.INDEX, start)
+                            }
+                            return action
                         } else if (Kether.isAllowToleranceParser) {
                             return wrap(ActionLiteral(token, true))
                         }
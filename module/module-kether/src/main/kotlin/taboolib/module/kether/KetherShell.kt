@@ -1,22 +1,87 @@
 package taboolib.module.kether
 
+import com.google.common.cache.CacheBuilder
+import com.google.common.cache.CacheStats
+import com.google.common.util.concurrent.ExecutionError
+import com.google.common.util.concurrent.UncheckedExecutionException
 import taboolib.common.platform.ProxyCommandSender
+import taboolib.library.kether.QuestAction
 import java.util.concurrent.CompletableFuture
 import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
 
 object KetherShell {
 
     val mainCache = Cache()
 
+    private val caches = ConcurrentHashMap<CachePolicy, Cache>()
+
     fun eval(source: List<String>, options: ScriptOptions = ScriptOptions()): CompletableFuture<Any?> {
         return eval(source.joinToString("\n"), options)
     }
 
     fun eval(source: String, options: ScriptOptions = ScriptOptions()): CompletableFuture<Any?> {
-        fun process() = eval(source, options.useCache, options.namespace, options.cache, options.sender, options.vars, options.context)
+        fun process() = prepare(source, options.useCache, options.namespace, options.cache, options.sender, options.vars, options.context, options.compile).runActions()
         return if (options.sandbox) runKether(detailError = options.detailError) { process() } ?: CompletableFuture.completedFuture(null) else process()
     }
 
+    /**
+     * 在当前线程中执行脚本并直接返回结果
+     * 脚本中的动作均不需要等待时不会创建 CompletableFuture，需要等待时脚本会继续异步执行，并返回 null
+     */
+    fun evalNow(source: String, options: ScriptOptions = ScriptOptions()): Any? {
+        fun process() = prepare(source, options.useCache, options.namespace, options.cache, options.sender, options.vars, options.context, options.compile).runActionsNow()
+        return if (options.sandbox) runKether(detailError = options.detailError) { process() } else process()
+    }
+
+    /**
+     * 以多个执行者分别执行同一脚本，例如为每名在线玩家判断条件
+     * 脚本只解析一次，在当前线程中执行完毕的上下文会被重置后用于下一名执行者，[ScriptOptions.sender] 不会生效
+     *
+     * @param vars 为每名执行者提供变量，返回 null 时不设置
+     * @return 与 [senders] 顺序一致的结果，所有脚本均未挂起时返回已完成的 future
+     */
+    @Suppress("UNCHECKED_CAST")
+    fun evalBatch(
+        source: String,
+        senders: Collection<ProxyCommandSender>,
+        options: ScriptOptions = ScriptOptions(),
+        vars: (ProxyCommandSender) -> VariableMap? = { null },
+    ): CompletableFuture<List<Any?>> {
+        val script = parse(source, options.useCache, options.namespace, options.cache, options.compile)
+        val results = arrayOfNulls<Any?>(senders.size)
+        val pending = ArrayList<CompletableFuture<*>>()
+        var pooled: ScriptContext? = null
+        senders.forEachIndexed { index, sender ->
+            val context = pooled ?: ScriptContext.create(script)
+            pooled = null
+            fun process(): Any? {
+                setupContext(context, sender, vars(sender), options.context)
+                return context.runActionsSync()
+            }
+            val result = if (options.sandbox) runKether(detailError = options.detailError) { process() } else process()
+            if (result is QuestAction.Pending) {
+                var future = (result.future as CompletableFuture<Any?>).thenApply { results[index] = it }
+                if (options.sandbox) {
+                    future = future.exceptionally { ex -> ex.printKetherErrorMessage(options.detailError) }
+                }
+                pending += future
+            } else {
+                results[index] = result
+                // 执行出错的上下文不会被重置
+                if (context.reset()) {
+                    pooled = context
+                }
+            }
+        }
+        if (pending.isEmpty()) {
+            return CompletableFuture.completedFuture(results.asList())
+        }
+        return CompletableFuture.allOf(*pending.toTypedArray()).thenApply { results.asList() }
+    }
+
     @Deprecated(
         "use eval(source: String, options: ScriptOptions = ScriptOptions()) instead", ReplaceWith(
             "eval(source, ScriptOptions.builder().namespace(namespace).sender(sender).build())",
@@ -50,19 +115,48 @@ object KetherShell {
         vars: VariableMap? = null,
         context: ScriptContext.() -> Unit = {},
     ): CompletableFuture<Any?> {
+        return prepare(source, cacheScript, namespace, cache, sender, vars, context).runActions()
+    }
+
+    private fun prepare(
+        source: String,
+        cacheScript: Boolean,
+        namespace: List<String>,
+        cache: Cache,
+        sender: ProxyCommandSender?,
+        vars: VariableMap?,
+        context: ScriptContext.() -> Unit,
+        compile: Boolean = false,
+    ): ScriptContext {
+        return createContext(parse(source, cacheScript, namespace, cache, compile), sender, vars, context)
+    }
+
+    /**
+     * 解析脚本，不以 def 开头的源码会被包装为 main 函数
+     */
+    internal fun parse(source: String, cacheScript: Boolean, namespace: List<String>, cache: Cache, compile: Boolean): Script {
         val s = if (source.startsWith("def ")) source else "def main = { $source }"
-        val script = if (cacheScript) cache.scriptMap.computeIfAbsent(s) {
-            it.parseKetherScript(namespace)
-        } else {
-            s.parseKetherScript(namespace)
+        fun parse(): Script {
+            val script = s.parseKetherScript(namespace)
+            return if (compile) KetherCompiler.compile(script) else script
         }
-        return ScriptContext.create(script).also {
-            if (sender != null) {
-                it.sender = sender
-            }
-            vars?.map?.forEach { (k, v) -> it.rootFrame().variables()[k] = v }
-            context(it)
-        }.runActions()
+        return if (cacheScript) cache.get(s, namespace, compile) { parse() } else parse()
+    }
+
+    /**
+     * 为解析后的脚本创建上下文
+     */
+    internal fun createContext(script: Script, sender: ProxyCommandSender?, vars: VariableMap?, context: ScriptContext.() -> Unit): ScriptContext {
+        return setupContext(ScriptContext.create(script), sender, vars, context)
+    }
+
+    private fun setupContext(it: ScriptContext, sender: ProxyCommandSender?, vars: VariableMap?, context: ScriptContext.() -> Unit): ScriptContext {
+        if (sender != null) {
+            it.sender = sender
+        }
+        vars?.map?.forEach { (k, v) -> it.rootFrame().variables()[k] = v }
+        context(it)
+        return it
     }
 
     /** 临时变量容器 */
@@ -73,9 +167,81 @@ object KetherShell {
         constructor(vararg map: Pair<String, Any?>) : this(map.toMap())
     }
 
+    /**
+     * 获取使用指定策略的共享缓存容器
+     */
+    fun cacheOf(policy: CachePolicy): Cache {
+        return if (policy == mainCache.policy) mainCache else caches.computeIfAbsent(policy) { Cache(it) }
+    }
+
+    /**
+     * 脚本缓存策略
+     *
+     * @param maximumSize 最多缓存的脚本数量，超出后淘汰最近最少使用的脚本，小于 0 表示不限制
+     * @param maximumWeight 以源码长度计算的最大权重，大于等于 0 时代替 maximumSize
+     * @param expireAfterAccess 脚本在多久未被使用后淘汰（毫秒），小于 0 表示不淘汰
+     */
+    data class CachePolicy(val maximumSize: Long = 10000, val maximumWeight: Long = -1, val expireAfterAccess: Long = -1)
+
     /** 脚本缓存容器 */
-    class Cache {
+    class Cache(val policy: CachePolicy = CachePolicy()) {
+
+        private val cache = CacheBuilder.newBuilder().also {
+            if (policy.maximumWeight >= 0) {
+                it.maximumWeight(policy.maximumWeight).weigher<String, Script> { key, _ -> key.length }
+            } else if (policy.maximumSize >= 0) {
+                it.maximumSize(policy.maximumSize)
+            }
+            if (policy.expireAfterAccess >= 0) {
+                it.expireAfterAccess(policy.expireAfterAccess, TimeUnit.MILLISECONDS)
+            }
+        }.recordStats().build<String, Script>()
+
+        /** 所有缓存的脚本，键由命名空间与源码组成 */
+        val scriptMap: ConcurrentMap<String, Script>
+            get() = cache.asMap()
+
+        /** 命中次数 */
+        val hitCount: Long
+            get() = cache.stats().hitCount()
 
-        val scriptMap = ConcurrentHashMap<String, Script>()
+        /** 未命中次数 */
+        val missCount: Long
+            get() = cache.stats().missCount()
+
+        /** 淘汰次数 */
+        val evictionCount: Long
+            get() = cache.stats().evictionCount()
+
+        /** 缓存的脚本数量 */
+        val size: Long
+            get() = cache.size()
+
+        /**
+         * 获取缓存的脚本，不存在时解析
+         * 同一脚本同时只会被解析一次，解析过程中的异常会直接抛出，不会被包装
+         */
+        fun get(source: String, namespace: List<String>, compile: Boolean = false, parse: () -> Script): Script {
+            val key = if (namespace.isEmpty() && !compile) source else "${namespace.joinToString(",")}${if (compile) "+compile" else ""}\u0000$source"
+            return try {
+                cache.get(key) { parse() }
+            } catch (ex: ExecutionException) {
+                throw ex.cause ?: ex
+            } catch (ex: UncheckedExecutionException) {
+                throw ex.cause ?: ex
+            } catch (ex: ExecutionError) {
+                throw ex.cause ?: ex
+            }
+        }
+
+        /** 获取统计信息 */
+        fun stats(): CacheStats {
+            return cache.stats()
+        }
+
+        /** 清空缓存 */
+        fun clear() {
+            cache.invalidateAll()
+        }
     }
 }
\ No newline at end of file
@@ -13,17 +13,14 @@ object ParserHolder {
     fun any(): Parser<Any?> {
         return Parser.frame { r ->
             val action = r.nextParsedAction()
-            Action { it.run(action) }
+            Action.parsed(action)
         }
     }
 
     /** 取任意类型并转换为列表 */
     @Suppress("UNCHECKED_CAST")
     fun anyAsList(): Parser<MutableList<Any?>> {
-        return Parser.frame { r ->
-            val action = r.nextParsedAction()
-            Action { it.run(action).thenApply { obj -> if (obj is MutableList<*>) obj as MutableList<Any?> else mutableListOf(obj) } }
-        }
+        return any().map { obj -> if (obj is MutableList<*>) obj as MutableList<Any?> else mutableListOf(obj) }
     }
 
     /**
@@ -64,7 +61,7 @@ object ParserHolder {
 
     /** 运行并返回结果 */
     fun <T> now(action: ScriptFrame.() -> T): Action<T> {
-        return Action { CompletableFuture.completedFuture(action(it)) }
+        return Action.sync { action(it) }
     }
 
     /** 运行并返回回调函数 */
@@ -36,6 +36,10 @@ class RemoteQuestContext(val remote: OpenContainer, val source: Any) : ScriptCon
         return source.invokeMethod("runActions", remap = false)!!
     }
 
+    override fun runActionsSync(): Any {
+        return QuestAction.Pending(runActions())
+    }
+
     override fun getExecutor(): QuestExecutor? {
         return source.invokeMethod("getExecutor", remap = false)!!
     }
@@ -3,6 +3,7 @@ package taboolib.module.kether
 import taboolib.common.platform.ProxyCommandSender
 import taboolib.common.platform.function.adaptCommandSender
 import taboolib.library.kether.AbstractQuestContext
+import taboolib.library.kether.QuestAction
 
 /**
  * Adyeshach
@@ -39,6 +40,15 @@ open class ScriptContext(service: ScriptService, script: Script) : AbstractQuest
         return rootFrame().variables().get<T>(key).orElse(def)
     }
 
+    /**
+     * 在当前线程中执行脚本并返回结果
+     * 所有动作均未挂起时不会经过 CompletableFuture，否则脚本会继续异步执行，并返回 [def]
+     */
+    fun runActionsNow(def: Any? = null): Any? {
+        val result = runActionsSync()
+        return if (result is QuestAction.Pending) result.future.getNow(def) else result
+    }
+
     /** 创建脚本执行器 */
     override fun createExecutor(): ScriptSchedulerExecutor {
         return ScriptSchedulerExecutor
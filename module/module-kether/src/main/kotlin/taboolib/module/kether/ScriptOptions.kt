@@ -22,6 +22,9 @@ class ScriptOptions(
 
     val vars = KetherShell.VariableMap(hashMapOf())
 
+    /** 是否将脚本编译为字节码（见 KetherCompiler）*/
+    var compile = false
+
     class ScriptOptionsBuilder {
 
         private val options = ScriptOptions()
@@ -35,6 +38,9 @@ class ScriptOptions(
         /** 缓存容器 */
         fun cache(cache: KetherShell.Cache) = apply { options.cache = cache }
 
+        /** 使用指定策略的共享缓存容器 */
+        fun cache(policy: KetherShell.CachePolicy) = apply { options.cache = KetherShell.cacheOf(policy) }
+
         /** 脚本执行者 */
         fun sender(sender: Any) = apply { options.sender = if (sender is ProxyCommandSender) sender else adaptCommandSender(sender) }
 
@@ -56,6 +62,9 @@ class ScriptOptions(
         /** 是否打印详细的错误信息 */
         fun detailError(value: Boolean = true) = apply { options.detailError = value }
 
+        /** 是否将脚本编译为字节码 */
+        fun compile(value: Boolean = true) = apply { options.compile = value }
+
         /** 上下文回调函数 */
         fun context(context: ScriptContext.() -> Unit) = apply { options.context = context }
 
@@ -2,13 +2,18 @@ package taboolib.module.kether
 
 import com.google.common.collect.ImmutableList
 import com.google.common.collect.MultimapBuilder
+import taboolib.common.platform.function.submit
 import taboolib.common.platform.function.warning
 import taboolib.common5.Coerce
+import taboolib.common5.FileWatcher
 import taboolib.library.kether.ExitStatus
-import taboolib.library.kether.Quest
 import java.io.File
 import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.security.MessageDigest
 import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.stream.Collectors
 
 /**
  * TabooLibKotlin
@@ -20,62 +25,174 @@ import java.util.concurrent.CompletableFuture
 @Suppress("UnstableApiUsage")
 class Workspace(val file: File, val extension: String = ".ks", val namespace: List<String> = emptyList()) {
 
-    val scripts = HashMap<String, Script>()
-    val scriptsSetting = HashMap<String, Map<String, Any?>>()
+    /** 所有脚本，重载时整体替换，不应修改 */
+    val scripts: HashMap<String, Script>
+        get() = snapshot.scripts
+
+    /** 所有脚本的 settings 语句块中定义的变量，重载时整体替换，不应修改 */
+    val scriptsSetting: HashMap<String, Map<String, Any?>>
+        get() = snapshot.settings
+
     val runningScripts = MultimapBuilder.hashKeys().arrayListValues().build<String, ScriptContext>()!!
 
+    /** 已加载的脚本文件，用于增量重载 */
+    private val entries = ConcurrentHashMap<String, Entry>()
+
+    /** 当前发布的脚本与 settings，每次重载构建新的表后一次性替换 */
+    @Volatile
+    private var snapshot = Snapshot(HashMap(), HashMap())
+
     fun loadAll() {
         loadScripts()
         loadSettings()
-        scripts.forEach {
-            if (Coerce.toBoolean(scriptsSetting[it.value.id]?.get("autostart"))) {
+        val snapshot = snapshot
+        snapshot.scripts.forEach {
+            if (Coerce.toBoolean(snapshot.settings[it.value.id]?.get("autostart"))) {
                 ScriptService.startQuest(ScriptContext.create(it.value))
             }
         }
     }
 
+    /**
+     * 加载 settings 语句块，只有重新解析过的脚本会重新执行
+     */
+    @Synchronized
     fun loadSettings() {
-        scriptsSetting.clear()
-        scripts.values.forEach { quest ->
-            val context = ScriptContext.create(quest)
-            quest.getBlock("settings").ifPresent {
-                it.actions.forEach { action ->
-                    action.process(context.rootFrame())
-                }
-            }
-            scriptsSetting[quest.id] = context.rootFrame().deepVars()
+        val settings = HashMap<String, Map<String, Any?>>()
+        entries.values.forEach { entry ->
+            settings[entry.script.id] = entry.settings ?: readSettings(entry.script).also { entry.settings = it }
         }
+        snapshot = Snapshot(snapshot.scripts, settings)
     }
 
+    /**
+     * 加载所有脚本
+     * 只有修改时间或内容发生变化的文件会被重新解析，解析过程在多个线程中进行，完成后统一更新
+     * 与 [reloadScript] 互斥，避免文件监听线程中的重载结果被覆盖
+     */
+    @Synchronized
     fun loadScripts() {
         if (!file.exists()) {
             file.mkdirs()
         }
-        scripts.clear()
-        val loader = KetherScriptLoader()
         val folder = file.toPath()
-        val scriptMap = HashMap<String, Quest>()
-        if (java.nio.file.Files.notExists(folder)) {
-            java.nio.file.Files.createDirectories(folder)
+        val files = Files.walk(folder).use { stream ->
+            stream.filter { !Files.isDirectory(it) }.collect(Collectors.toList()).mapNotNull { path ->
+                val name = folder.relativize(path).toString().replace(File.separatorChar, '.')
+                if (name.endsWith(extension)) name to path.toFile() else null
+            }
         }
-        val iterator = java.nio.file.Files.walk(folder).iterator()
-        while (iterator.hasNext()) {
-            val path = iterator.next()
-            if (!java.nio.file.Files.isDirectory(path)) {
-                try {
-                    val name = folder.relativize(path).toString().replace(File.separatorChar, '.')
-                    if (name.endsWith(extension)) {
-                        val text = path.toFile().readText(StandardCharsets.UTF_8).lines()
-                        val bytes = text.mapNotNull { if (it.trim().startsWith("#")) null else it }.joinToString("\n").toByteArray(StandardCharsets.UTF_8)
-                        scriptMap[name] = loader.load(ScriptService, name, bytes, namespace)
-                    }
-                } catch (e: Exception) {
-                    warning("Unexpected exception while parsing kether script:")
-                    e.localizedMessage?.split('\n')?.forEach { warning(it) }
+        val fingerprint = fingerprint()
+        val loaded = files.parallelStream().map { (name, file) -> name to load(name, file, fingerprint) }.collect(Collectors.toList())
+        entries.keys.retainAll(files.map { it.first }.toSet())
+        val scripts = HashMap<String, Script>()
+        loaded.forEach { (name, entry) -> if (entry != null) scripts[name] = entry.script }
+        // settings 仍是上次执行的结果，由 loadSettings 更新
+        val settings = HashMap(snapshot.settings)
+        settings.keys.retainAll(scripts.values.map { it.id }.toSet())
+        snapshot = Snapshot(scripts, settings)
+    }
+
+    /**
+     * 重新加载单个脚本文件，文件不存在时移除对应的脚本
+     * settings 语句块会执行脚本动作，须在主线程中调用
+     */
+    @Synchronized
+    fun reloadScript(file: File) {
+        val name = name(file)
+        publish(name, if (file.exists()) load(name, file, fingerprint()) else null)
+    }
+
+    /**
+     * 通过 FileWatcher 监听所有脚本文件，文件被修改后自动重载
+     * 解析在文件监听线程中进行，settings 语句块的执行与结果的发布交给主线程
+     */
+    fun watch() {
+        entries.values.forEach { entry ->
+            if (!FileWatcher.INSTANCE.hasListener(entry.file)) {
+                FileWatcher.INSTANCE.addSimpleListener(entry.file) {
+                    val name = name(entry.file)
+                    val loaded = synchronized(this) { if (entry.file.exists()) load(name, entry.file, fingerprint()) else null }
+                    submit { publish(name, loaded) }
                 }
             }
         }
-        scripts.putAll(scriptMap)
+    }
+
+    @Synchronized
+    private fun publish(name: String, entry: Entry?) {
+        // 期间已被其他的重载覆盖
+        if (entry != null && entries[name] !== entry) {
+            return
+        }
+        val scripts = HashMap(snapshot.scripts)
+        val settings = HashMap(snapshot.settings)
+        if (entry == null) {
+            entries.remove(name)
+            scripts.remove(name)?.let { settings.remove(it.id) }
+        } else {
+            scripts[name] = entry.script
+            settings[entry.script.id] = entry.settings ?: readSettings(entry.script).also { entry.settings = it }
+        }
+        snapshot = Snapshot(scripts, settings)
+    }
+
+    private fun name(file: File): String {
+        return this.file.toPath().relativize(file.toPath()).toString().replace(File.separatorChar, '.')
+    }
+
+    /**
+     * 加载脚本文件，未发生变化时返回已有的结果
+     */
+    private fun load(name: String, file: File, fingerprint: Long): Entry? {
+        val old = entries[name]
+        val modified = file.lastModified()
+        if (old != null && old.modified == modified && old.length == file.length()) {
+            return old
+        }
+        return try {
+            val bytes = file.readBytes()
+            val hash = MessageDigest.getInstance("SHA-1").digest(bytes)
+            // 内容未发生变化
+            if (old != null && old.hash.contentEquals(hash)) {
+                return Entry(file, modified, old.length, hash, old.script).also { it.settings = old.settings; entries[name] = it }
+            }
+            val text = String(bytes, StandardCharsets.UTF_8).lines()
+            val source = text.mapNotNull { if (it.trim().startsWith("#")) null else it }.joinToString("\n").toByteArray(StandardCharsets.UTF_8)
+            val script = KetherQuestCache.load(name, source, hash, namespace, fingerprint) { KetherScriptLoader().load(ScriptService, name, source, namespace) }
+            Entry(file, modified, bytes.size.toLong(), hash, script).also { entries[name] = it }
+        } catch (e: Exception) {
+            warning("Unexpected exception while parsing kether script:")
+            e.localizedMessage?.split('\n')?.forEach { warning(it) }
+            entries.remove(name)
+            null
+        }
+    }
+
+    /**
+     * 未启用脚本缓存时不需要计算
+     */
+    private fun fingerprint(): Long {
+        return if (KetherQuestCache.ENABLED) KetherQuestCache.fingerprint(namespace) else 0L
+    }
+
+    private fun readSettings(quest: Script): Map<String, Any?> {
+        val context = ScriptContext.create(quest)
+        quest.getBlock("settings").ifPresent {
+            it.actions.forEach { action ->
+                action.process(context.rootFrame())
+            }
+        }
+        return context.rootFrame().deepVars()
+    }
+
+    private class Snapshot(val scripts: HashMap<String, Script>, val settings: HashMap<String, Map<String, Any?>>)
+
+    private class Entry(val file: File, val modified: Long, val length: Long, val hash: ByteArray, val script: Script) {
+
+        /** settings 语句块中定义的变量 */
+        @Volatile
+        var settings: Map<String, Any?>? = null
     }
 
     fun cancelAll() {
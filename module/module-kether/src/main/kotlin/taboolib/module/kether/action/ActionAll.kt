@@ -0,0 +1,57 @@
+package taboolib.module.kether.action
+
+import taboolib.common.Inject
+import taboolib.library.kether.ArgTypes
+import taboolib.library.kether.ParsedAction
+import taboolib.module.kether.*
+import java.util.concurrent.CompletableFuture
+
+/**
+ * TabooLib
+ * taboolib.module.kether.action.ActionAll
+ *
+ * all [ ... ] 依次执行，遇到 false 时返回 false
+ * any [ ... ] 依次执行，遇到 true 时返回 true
+ *
+ * @author agent
+ * @since 2026/10/17
+ */
+class ActionAll(val actions: List<ParsedAction<*>>, val any: Boolean) : ScriptAction<Any?>() {
+
+    override fun run(frame: ScriptFrame): CompletableFuture<Any?> {
+        val future = CompletableFuture<Any?>()
+        fun process(cur: Int) {
+            if (cur < actions.size) {
+                frame.run(actions[cur]).bool { b ->
+                    if (b == any) {
+                        future.complete(any)
+                    } else {
+                        process(cur + 1)
+                    }
+                }
+            } else {
+                future.complete(!any)
+            }
+        }
+        process(0)
+        return future
+    }
+
+    override fun toString(): String {
+        return "ActionAll(actions=$actions, any=$any)"
+    }
+
+    @Inject
+    internal companion object {
+
+        @KetherParser(["all"])
+        fun parserAll() = scriptParser {
+            ActionAll(it.next(ArgTypes.listOf(ArgTypes.ACTION)), false)
+        }
+
+        @KetherParser(["any"])
+        fun parserAny() = scriptParser {
+            ActionAll(it.next(ArgTypes.listOf(ArgTypes.ACTION)), true)
+        }
+    }
+}
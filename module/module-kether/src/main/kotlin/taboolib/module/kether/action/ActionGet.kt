@@ -3,13 +3,29 @@ package taboolib.module.kether.action
 import taboolib.common.Inject
 import taboolib.library.kether.QuestAction
 import taboolib.library.kether.QuestContext
+import taboolib.library.kether.VarSlots
 import taboolib.module.kether.*
 import java.util.concurrent.CompletableFuture
 
 class ActionGet<T>(val key: String) : QuestAction<T>() {
 
+    /** 变量槽位，在解析时分配 */
+    val slot = VarSlots.of(key)
+
     override fun process(frame: QuestContext.Frame): CompletableFuture<T> {
-        return CompletableFuture.completedFuture(frame.variables().get<T?>(key).orElse(null))
+        return CompletableFuture.completedFuture(frame.variables().getOrNull<T>(slot, key))
+    }
+
+    override fun isSync(): Boolean {
+        return true
+    }
+
+    override fun isFrameFree(): Boolean {
+        return true
+    }
+
+    override fun processSync(frame: QuestContext.Frame): Any? {
+        return frame.variables().getOrNull<T>(slot, key)
     }
 
     @Inject
@@ -28,8 +44,7 @@ class ActionGet<T>(val key: String) : QuestAction<T>() {
                     ActionProperty.Get(it.nextParsedAction(), property)
                 }
                 other {
-                    val key = it.nextToken()
-                    actionNow { variables().get<Any>(key).orElse(null) }
+                    ActionGet<Any?>(it.nextToken())
                 }
             }
         }
@@ -0,0 +1,68 @@
+package taboolib.module.kether.action
+
+import taboolib.common.Inject
+import taboolib.common5.Coerce
+import taboolib.common5.cbool
+import taboolib.library.kether.ParsedAction
+import taboolib.library.kether.QuestReader
+import taboolib.module.kether.*
+import java.util.concurrent.CompletableFuture
+
+/**
+ * TabooLib
+ * taboolib.module.kether.action.ActionIf
+ *
+ * if {condition} then {action} [else {action}]
+ *
+ * @author agent
+ * @since 2026/10/17
+ */
+class ActionIf(val condition: ParsedAction<*>, val then: ParsedAction<*>, val orElse: ParsedAction<*>?) : ScriptAction<Any?>() {
+
+    override fun run(frame: ScriptFrame): CompletableFuture<Any?> {
+        return frame.run(condition).thenCompose {
+            when {
+                it.cbool -> frame.run(then)
+                orElse != null -> frame.run(orElse)
+                else -> CompletableFuture.completedFuture(null)
+            }
+        }
+    }
+
+    override fun toString(): String {
+        return "ActionIf(condition=$condition, then=$then, orElse=$orElse)"
+    }
+
+    @Inject
+    internal companion object {
+
+        @KetherParser(["if"])
+        fun parser() = scriptParser {
+            val condition = condition(it)
+            it.expect("then")
+            val then = it.nextParsedAction()
+            val orElse = try {
+                it.mark()
+                it.expect("else")
+                it.nextParsedAction()
+            } catch (ignored: Exception) {
+                it.reset()
+                null
+            }
+            ActionIf(condition, then, orElse)
+        }
+
+        /**
+         * 读取条件，与 ParserHolder.bool 相同，优先读取布尔值字面量
+         */
+        fun condition(reader: QuestReader): ParsedAction<*> {
+            return try {
+                reader.mark()
+                literalAction(Coerce.asBoolean(reader.nextToken()).get())
+            } catch (ignored: Exception) {
+                reader.reset()
+                reader.nextParsedAction()
+            }
+        }
+    }
+}
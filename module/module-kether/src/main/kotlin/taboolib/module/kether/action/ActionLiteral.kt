@@ -30,6 +30,18 @@ class ActionLiteral<T> : QuestAction<T> {
         return CompletableFuture.completedFuture(value as T)
     }
 
+    override fun isSync(): Boolean {
+        return true
+    }
+
+    override fun isFrameFree(): Boolean {
+        return true
+    }
+
+    override fun processSync(frame: QuestContext.Frame): Any {
+        return value
+    }
+
     companion object {
 
         fun parser(): QuestActionParser {
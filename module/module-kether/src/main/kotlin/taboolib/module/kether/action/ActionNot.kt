@@ -0,0 +1,36 @@
+package taboolib.module.kether.action
+
+import taboolib.common.Inject
+import taboolib.common5.cbool
+import taboolib.library.kether.ParsedAction
+import taboolib.module.kether.*
+import java.util.concurrent.CompletableFuture
+
+/**
+ * TabooLib
+ * taboolib.module.kether.action.ActionNot
+ *
+ * not {condition}
+ *
+ * @author agent
+ * @since 2026/10/17
+ */
+class ActionNot(val condition: ParsedAction<*>) : ScriptAction<Boolean>() {
+
+    override fun run(frame: ScriptFrame): CompletableFuture<Boolean> {
+        return frame.run(condition).thenApply { !it.cbool }
+    }
+
+    override fun toString(): String {
+        return "ActionNot(condition=$condition)"
+    }
+
+    @Inject
+    internal companion object {
+
+        @KetherParser(["not"])
+        fun parser() = scriptParser {
+            ActionNot(ActionIf.condition(it))
+        }
+    }
+}
@@ -4,27 +4,62 @@ import taboolib.common.Inject
 import taboolib.library.kether.ParsedAction
 import taboolib.library.kether.QuestAction
 import taboolib.library.kether.QuestContext
+import taboolib.library.kether.VarSlots
 import taboolib.module.kether.*
 import java.util.concurrent.CompletableFuture
 
+@Suppress("UNCHECKED_CAST")
 class ActionSet {
 
     class ForConstant(val key: String, val value: String?) : QuestAction<Void>() {
 
+        /** 变量槽位，在解析时分配 */
+        val slot = VarSlots.of(key)
+
         override fun process(frame: QuestContext.Frame): CompletableFuture<Void> {
+            processSync(frame)
+            return CompletableFuture.completedFuture(null)
+        }
+
+        override fun isSync(): Boolean {
+            return true
+        }
+
+        override fun processSync(frame: QuestContext.Frame): Any? {
             if (value == null || value == "null") {
-                frame.variables()[key] = null
+                frame.variables().set(slot, key, null)
             } else {
-                frame.variables()[key] = value
+                frame.variables().set(slot, key, value)
             }
-            return CompletableFuture.completedFuture(null)
+            return null
         }
     }
 
     class ForAction(val key: String, val action: ParsedAction<*>) : QuestAction<Void>() {
 
+        /** 变量槽位，在解析时分配 */
+        val slot = VarSlots.of(key)
+
         override fun process(frame: QuestContext.Frame): CompletableFuture<Void> {
-            return frame.run(action).thenAccept { frame.variables().set(key, it) }.except()
+            return frame.run(action).thenAccept { frame.variables().set(slot, key, it) }.except()
+        }
+
+        override fun isSync(): Boolean {
+            return action.isSync
+        }
+
+        override fun processSync(frame: QuestContext.Frame): Any? {
+            val value = try {
+                action.processNested(frame)
+            } catch (ex: Throwable) {
+                ex.printStackTrace()
+                return null
+            }
+            if (value is QuestAction.Pending) {
+                return QuestAction.Pending((value.future as CompletableFuture<Any?>).thenAccept { frame.variables().set(slot, key, it) }.except())
+            }
+            frame.variables().set(slot, key, value)
+            return null
         }
     }
 
@@ -90,20 +90,6 @@ internal object Actions {
         actionNow { setNext(context().quest.blocks[block] ?: error("block $block not found")) }
     }
 
-    @KetherParser(["if"])
-    fun actionIf() = combinationParser {
-        it.group(bool(), command("then", then = action()), command("else", then = action()).option()).apply(it) { condition, t, f ->
-            future {
-                if (condition) run(t) else if (f != null) run(f) else CompletableFuture.completedFuture(null)
-            }
-        }
-    }
-
-    @KetherParser(["not"])
-    fun actionNot() = combinationParser {
-        it.group(bool()).apply(it) { b -> now { !b } }
-    }
-
     @KetherParser(["repeat"])
     fun actionRepeat() = scriptParser {
         val times = it.nextParsedAction()
@@ -150,46 +136,4 @@ internal object Actions {
             CompletableFuture.anyOf(*futures)
         }
     }
-
-    @KetherParser(["all"])
-    fun actionAll() = scriptParser {
-        val actions = it.next(ArgTypes.listOf(ArgTypes.ACTION))
-        actionFuture { f ->
-            fun process(cur: Int) {
-                if (cur < actions.size) {
-                    run(actions[cur]).bool { b ->
-                        if (b) {
-                            process(cur + 1)
-                        } else {
-                            f.complete(false)
-                        }
-                    }
-                } else {
-                    f.complete(true)
-                }
-            }
-            process(0)
-        }
-    }
-
-    @KetherParser(["any"])
-    fun actionAny() = scriptParser {
-        val actions = it.next(ArgTypes.listOf(ArgTypes.ACTION))
-        actionFuture { f ->
-            fun process(cur: Int) {
-                if (cur < actions.size) {
-                    run(actions[cur]).bool { b ->
-                        if (b) {
-                            f.complete(true)
-                        } else {
-                            process(cur + 1)
-                        }
-                    }
-                } else {
-                    f.complete(false)
-                }
-            }
-            process(0)
-        }
-    }
 }
\ No newline at end of file
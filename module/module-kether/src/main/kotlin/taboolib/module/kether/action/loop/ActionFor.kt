@@ -3,6 +3,7 @@ package taboolib.module.kether.action.loop
 import taboolib.common.Inject
 import taboolib.library.kether.ArgTypes
 import taboolib.library.kether.ParsedAction
+import taboolib.library.kether.VarSlots
 import taboolib.module.kether.*
 import java.util.concurrent.CompletableFuture
 
@@ -11,6 +12,11 @@ import java.util.concurrent.CompletableFuture
  */
 class ActionFor(val key: String, val values: ParsedAction<*>, val action: ParsedAction<*>) : ScriptAction<Void>() {
 
+    /** 变量槽位，在解析时分配 */
+    private val slot = VarSlots.of(key)
+    private val keySlot = VarSlots.of("$key-key")
+    private val valueSlot = VarSlots.of("$key-value")
+
     override fun run(frame: ScriptFrame): CompletableFuture<Void> {
         val future = CompletableFuture<Void>()
         frame.newFrame(values).run<Any>().thenApply {
@@ -18,10 +24,10 @@ class ActionFor(val key: String, val values: ParsedAction<*>, val action: Parsed
                 if (cur < i.size) {
                     val el = i[cur]
                     if (el is Map.Entry<*, *>) {
-                        frame.variables()["$key-key"] = el.key
-                        frame.variables()["$key-value"] = el.value
+                        frame.variables().set(keySlot, "$key-key", el.key)
+                        frame.variables().set(valueSlot, "$key-value", el.value)
                     }
-                    frame.variables()[key] = el
+                    frame.variables().set(slot, key, el)
                     frame.newFrame(action).run<Any>().thenApply {
                         if (frame.script().breakLoop) {
                             frame.script().breakLoop = false
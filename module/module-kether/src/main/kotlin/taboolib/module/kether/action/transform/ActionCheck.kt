@@ -0,0 +1,74 @@
+package taboolib.module.kether.action.transform
+
+import taboolib.common.Inject
+import taboolib.library.kether.ParsedAction
+import taboolib.library.kether.Parser
+import taboolib.library.kether.QuestAction
+import taboolib.module.kether.*
+import java.util.concurrent.CompletableFuture
+
+/**
+ * TabooLib
+ * taboolib.module.kether.action.transform.ActionCheck
+ *
+ * check {left} {symbol} {right}
+ *
+ * @author agent
+ * @since 2026/10/17
+ */
+class ActionCheck(val left: ParsedAction<*>, val symbol: String, val right: ParsedAction<*>) : ScriptAction<Boolean>() {
+
+    /** 比较方式，与原实现一致，无效的符号在执行时（两侧求值之后）才会报错 */
+    val type by lazy(LazyThreadSafetyMode.PUBLICATION) { CheckType.fromString(symbol) }
+
+    private val leftAction = Parser.Action.parsed<Any?>(left)
+    private val rightAction = Parser.Action.parsed<Any?>(right)
+
+    /**
+     * 比较
+     */
+    fun check(left: Any?, right: Any?): Boolean {
+        return type.check(left, right)
+    }
+
+    override fun run(frame: ScriptFrame): CompletableFuture<Boolean> {
+        return leftAction.run(frame).thenCompose { l -> rightAction.run(frame).thenApply { r -> check(l, r) } }
+    }
+
+    override fun isSync(): Boolean {
+        return leftAction.isSync && rightAction.isSync
+    }
+
+    override fun processSync(frame: ScriptFrame): Any? {
+        // 与 run 一致，执行过程中的异常以失败的 future 返回
+        return try {
+            val l = leftAction.runSync(frame)
+            if (l is QuestAction.Pending) {
+                return QuestAction.Pending(l.future.thenCompose { v -> rightAction.run(frame).thenApply { r -> check(v, r) } })
+            }
+            val r = rightAction.runSync(frame)
+            if (r is QuestAction.Pending) {
+                return QuestAction.Pending(r.future.thenApply { v -> check(l, v) })
+            }
+            check(l, r)
+        } catch (ex: Throwable) {
+            QuestAction.Pending.failed(ex)
+        }
+    }
+
+    override fun toString(): String {
+        return "ActionCheck(left=$left, symbol='$symbol', right=$right)"
+    }
+
+    @Inject
+    internal companion object {
+
+        /**
+         * check &a > 10
+         */
+        @KetherParser(["check"])
+        fun parser() = scriptParser {
+            ActionCheck(it.nextParsedAction(), it.nextToken(), it.nextParsedAction())
+        }
+    }
+}
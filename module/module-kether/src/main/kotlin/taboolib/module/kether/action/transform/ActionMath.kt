@@ -4,7 +4,9 @@ import taboolib.common.Inject
 import taboolib.common5.Coerce
 import taboolib.library.kether.ArgTypes
 import taboolib.library.kether.ParsedAction
+import taboolib.library.kether.QuestAction
 import taboolib.module.kether.*
+import taboolib.module.kether.action.ActionLiteral
 import java.util.concurrent.CompletableFuture
 
 /**
@@ -13,7 +15,7 @@ import java.util.concurrent.CompletableFuture
  * @author sky
  * @since 2021/3/16 2:56 下午
  */
-@Suppress("DEPRECATION")
+@Suppress("DEPRECATION", "UNCHECKED_CAST")
 @Deprecated("use calc")
 class ActionMath(val type: Type, val array: List<ParsedAction<*>>) : ScriptAction<Number>() {
 
@@ -51,6 +53,40 @@ class ActionMath(val type: Type, val array: List<ParsedAction<*>>) : ScriptActio
             }
         });
 
+        /**
+         * 计算两个值，整数与整数、整数与小数之间直接计算，不经过列表与 Coerce
+         * 其他情况交由 [exec] 处理，两者的结果相同
+         */
+        fun calc(a: Number, b: Any?): Number {
+            if (a is Int) {
+                val y = when (b) {
+                    is Int -> b
+                    is String -> b.toPlainIntOrNull()
+                    else -> null
+                }
+                if (y != null) {
+                    return when (this) {
+                        ADD -> a + y
+                        SUB -> a - y
+                        MUL -> a * y
+                        DIV -> a / y
+                    }
+                }
+            }
+            if ((a is Int || a is Double) && (b is Int || b is Double)) {
+                val x = a.toDouble()
+                val y = (b as Number).toDouble()
+                // 与 sumOf、mulByDouble 的累加方式一致，保留 -0.0 的计算结果
+                return when (this) {
+                    ADD -> 0.0 + x + y
+                    SUB -> x - y
+                    MUL -> 1.0 * x * y
+                    DIV -> x / y
+                }
+            }
+            return exec(listOf(a, b) as List<Any>)
+        }
+
         companion object {
 
             fun fromString(value: String): Type? {
@@ -87,6 +123,97 @@ class ActionMath(val type: Type, val array: List<ParsedAction<*>>) : ScriptActio
         return future
     }
 
+    /**
+     * 链式运算，从左到右依次计算
+     * math 1 + 2 * 3
+     */
+    class Chain(val actions: List<ParsedAction<*>>, val symbols: List<Type>) : ScriptAction<Any?>() {
+
+        /**
+         * 计算一步
+         */
+        fun exec(num: Number, index: Int, value: Any?): Number {
+            return symbols[index - 1].calc(num, value)
+        }
+
+        /**
+         * 预先计算开头连续的常量，例如 math 1 + 2 * x 折叠为 math 3 * x
+         * 全部为常量时折叠为仅包含结果的运算，计算出错的部分保留到执行时
+         */
+        fun fold(): Chain {
+            var num = (actions[0].action as? ActionLiteral<*>)?.value?.inferType() as? Number ?: return this
+            var cur = 1
+            while (cur < actions.size) {
+                val value = (actions[cur].action as? ActionLiteral<*>)?.value ?: break
+                num = try {
+                    exec(num, cur, value)
+                } catch (ex: Throwable) {
+                    break
+                }
+                cur++
+            }
+            if (cur == 1) {
+                return this
+            }
+            return Chain(listOf(literalAction(num)) + actions.drop(cur), symbols.drop(cur - 1))
+        }
+
+        override fun run(frame: ScriptFrame): CompletableFuture<Any?> {
+            return frame.newFrame(actions[0]).run<Any?>().thenCompose { start(frame, it) }
+        }
+
+        override fun isSync(): Boolean {
+            return actions.all { it.isSync }
+        }
+
+        override fun processSync(frame: ScriptFrame): Any? {
+            val base = actions[0].processNested(frame)
+            if (base is QuestAction.Pending) {
+                return QuestAction.Pending((base.future as CompletableFuture<Any?>).thenCompose { start(frame, it) })
+            }
+            var num = try {
+                base.inferType() as Number
+            } catch (ex: Throwable) {
+                return QuestAction.Pending.failed(ex)
+            }
+            for (cur in 1 until actions.size) {
+                try {
+                    val value = actions[cur].processNested(frame)
+                    if (value is QuestAction.Pending) {
+                        val future = CompletableFuture<Any?>()
+                        process(frame, num, cur, value.future as CompletableFuture<Any?>, future)
+                        return QuestAction.Pending(future)
+                    }
+                    num = exec(num, cur, value)
+                } catch (ex: Throwable) {
+                    ex.printStackTrace()
+                    return 0
+                }
+            }
+            return num
+        }
+
+        private fun start(frame: ScriptFrame, base: Any?): CompletableFuture<Any?> {
+            if (actions.size == 1) {
+                return CompletableFuture.completedFuture(base.inferType() as Number)
+            }
+            val future = CompletableFuture<Any?>()
+            process(frame, base.inferType() as Number, 1, frame.newFrame(actions[1]).run(), future)
+            return future
+        }
+
+        private fun process(frame: ScriptFrame, num: Number, cur: Int, value: CompletableFuture<Any?>, future: CompletableFuture<Any?>) {
+            value.thenApply { num2 ->
+                val next = exec(num, cur, num2)
+                if (cur + 1 < actions.size) {
+                    process(frame, next, cur + 1, frame.newFrame(actions[cur + 1]).run<Any?>(), future)
+                } else {
+                    future.complete(next)
+                }
+            }.except { future.complete(0) }
+        }
+    }
+
     @Inject
     internal companion object {
 
@@ -130,22 +257,7 @@ class ActionMath(val type: Type, val array: List<ParsedAction<*>>) : ScriptActio
                     }
                     check()
                     if (stack.size > 1) {
-                        actionFuture { f ->
-                            newFrame(stack[0].action).run<Any>().thenApply { base ->
-                                var num = base.inferType() as Number
-                                fun process(cur: Int) {
-                                    if (cur < stack.size) {
-                                        newFrame(stack[cur].action).run<Any>().thenApply { num2 ->
-                                            num = stack[cur].symbol!!.exec(listOf(num, num2))
-                                            process(cur + 1)
-                                        }.except { f.complete(0) }
-                                    } else {
-                                        f.complete(num)
-                                    }
-                                }
-                                process(1)
-                            }
-                        }
+                        Chain(stack.map { s -> s.action }, stack.drop(1).map { s -> s.symbol!! }).fold()
                     } else {
                         null
                     }
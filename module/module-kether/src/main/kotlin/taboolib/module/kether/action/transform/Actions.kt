@@ -56,17 +56,6 @@ internal object Actions {
         }
     }
 
-    /**
-     * 比较
-     */
-    @KetherParser(["check"])
-    fun actionCheck() = combinationParser {
-        it.group(any(), symbol(), any()).apply(it) { l, s, r ->
-            val ct = CheckType.fromString(s)
-            now { ct.check(l, r) }
-        }
-    }
-
     /**
      * 内联函数
      */
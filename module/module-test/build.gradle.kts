@@ -1,5 +1,6 @@
 dependencies {
     compileOnly(project(":common"))
+    compileOnly(project(":common-env"))
     compileOnly(project(":common-util"))
     compileOnly(project(":common-platform-api"))
     compileOnly(project(":module:module-ai"))
@@ -7,6 +8,7 @@ dependencies {
     compileOnly(project(":module:module-bukkit-util"))
     compileOnly(project(":module:module-bukkit-xseries"))
     compileOnly(project(":module:module-chat"))
+    compileOnly(project(":module:module-kether"))
     compileOnly(project(":module:module-nms"))
     compileOnly(project(":module:module-nms-util"))
     compileOnly(project(":module:module-nms-util-legacy"))
@@ -24,8 +24,16 @@ object TabooLibTest {
     fun run(detail: Boolean = true) {
         Test.check(
             TestBukkitAttribute,
+            TestClassIndex,
             TestDataSerializer,
+            TestDependencyDownloader,
+            TestInternalEventBus,
             TestItemTag,
+            TestKetherBatch,
+            TestKetherCompiler,
+            TestKetherMath,
+            TestKetherQuestCache,
+            TestKetherSync,
             TestLocaleI18n,
             TestMinecraftServerUtil,
             TestNMSEntity,
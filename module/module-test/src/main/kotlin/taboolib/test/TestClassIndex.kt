@@ -0,0 +1,102 @@
+package taboolib.test
+
+import taboolib.common.Test
+import taboolib.common.io.ClassIndex
+import taboolib.common.io.IndexedClassMap
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.nio.file.Files
+
+/**
+ * TabooLib
+ * taboolib.test.TestClassIndex
+ *
+ * 以下方的类为样本生成类索引，验证间接继承、同名类与注解标记
+ *
+ * @author agent
+ * @since 2026/10/17
+ */
+object TestClassIndex : Test() {
+
+    val fixtures = listOf(
+        IndexFixtureBase::class.java,
+        IndexFixtureMiddle::class.java,
+        IndexFixtureLeaf::class.java,
+        IndexFixtureA.Same::class.java,
+        IndexFixtureB.Same::class.java,
+    )
+
+    override fun check(): List<Result> {
+        val folder = Files.createTempDirectory("taboolib-class-index").toFile()
+        try {
+            fixtures.forEach { copy(it, folder) }
+            val group = TestClassIndex::class.java.name.substringBeforeLast('.')
+            val index = ClassIndex.generate(folder, listOf(group), TestClassIndex::class.java.classLoader)
+            val base = "^${IndexFixtureBase::class.java.name}"
+            return listOf(
+                sandbox("ClassIndex:supertypes(indirect)") {
+                    require(index.hasTag(IndexFixtureLeaf::class.java.name, base)) { index.getTags(IndexFixtureLeaf::class.java.name).toString() }
+                    require(index.hasTag(IndexFixtureLeaf::class.java.name, "^${IndexFixtureMiddle::class.java.name}"))
+                },
+                sandbox("ClassIndex:supertypes(same simple name)") {
+                    require(index.hasTag(IndexFixtureA.Same::class.java.name, base))
+                    require(!index.hasTag(IndexFixtureB.Same::class.java.name, base))
+                },
+                sandbox("ClassIndex:annotations") {
+                    require(index.hasTag(IndexFixtureLeaf::class.java.name, IndexFixtureMark::class.java.name))
+                    require(index.hasTag(IndexFixtureMiddle::class.java.name, IndexFixtureMark::class.java.name))
+                    // 项目组外的注解（例如 kotlin.Metadata）不会被记录
+                    require(index.getTags(IndexFixtureBase::class.java.name).none { !it.startsWith("^") && !it.startsWith(group) })
+                },
+                sandbox("ClassIndex:write") {
+                    val bytes = ByteArrayOutputStream().also { index.write(it) }.toByteArray()
+                    val read = ClassIndex.parse(ByteArrayInputStream(bytes)) ?: error("format mismatch")
+                    require(read.entries == index.entries)
+                    require(ClassIndex.parse(ByteArrayInputStream("a.B ^C".toByteArray())) == null)
+                },
+                sandbox("ClassIndex:findSubclasses") {
+                    val map = IndexedClassMap(index, TestClassIndex::class.java.classLoader)
+                    val found = map.getTaggedClasses(base).values.toSet()
+                    require(found == setOf(IndexFixtureMiddle::class.java, IndexFixtureLeaf::class.java, IndexFixtureA.Same::class.java)) { found.toString() }
+                },
+            )
+        } catch (ex: Throwable) {
+            return listOf(Failure.of("ClassIndex:generate", ex))
+        } finally {
+            folder.deleteRecursively()
+        }
+    }
+
+    private fun copy(cls: Class<*>, folder: File) {
+        val path = cls.name.replace('.', '/') + ".class"
+        val file = File(folder, path)
+        file.parentFile.mkdirs()
+        cls.classLoader.getResourceAsStream(path)!!.use { input -> file.outputStream().use { input.copyTo(it) } }
+    }
+}
+
+@Retention(AnnotationRetention.RUNTIME)
+annotation class IndexFixtureMark
+
+interface IndexFixtureBase
+
+abstract class IndexFixtureMiddle : IndexFixtureBase {
+
+    @IndexFixtureMark
+    fun marked() {
+    }
+}
+
+@IndexFixtureMark
+class IndexFixtureLeaf : IndexFixtureMiddle()
+
+object IndexFixtureA {
+
+    class Same : IndexFixtureBase
+}
+
+object IndexFixtureB {
+
+    class Same
+}
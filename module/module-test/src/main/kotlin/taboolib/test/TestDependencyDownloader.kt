@@ -0,0 +1,110 @@
+package taboolib.test
+
+import taboolib.common.Test
+import taboolib.common.env.Dependency
+import taboolib.common.env.DependencyDownloader
+import taboolib.common.env.DependencyScope
+import taboolib.common.env.Repository
+import java.io.File
+import java.io.IOException
+import java.nio.file.Files
+import java.security.MessageDigest
+
+/**
+ * TabooLib
+ * taboolib.test.TestDependencyDownloader
+ *
+ * 以本地的 file:// 仓库验证 [DependencyDownloader] 的并行下载：传递依赖、去重、最新版本解析与校验失败
+ *
+ * @author agent
+ * @since 2026/10/17
+ */
+object TestDependencyDownloader : Test() {
+
+    override fun check(): List<Result> {
+        val folder = Files.createTempDirectory("taboolib-dependency").toFile()
+        try {
+            val results = ArrayList<Result>()
+            // 已下载的依赖在进程内共享，每次下载使用不同的组
+            results += sandbox("DependencyDownloader:file repository") {
+                val sequential = download(folder, "test.sequential", 1)
+                val parallel = download(folder, "test.parallel", 4)
+                val expect = listOf("root:1.0", "left:1.0", "right:1.0", "latest:2.0", "shared:1.0")
+                require(sequential == expect) { "sequential=$sequential" }
+                require(parallel == expect) { "parallel=$parallel" }
+            }
+            results += sandbox("DependencyDownloader:checksum mismatch") {
+                val group = "test.corrupt"
+                val repo = File(folder, "repo-$group")
+                artifact(repo, group, "root", "1.0", emptyList())
+                // 篡改 jar 文件，校验应当失败且不留下文件
+                File(repo, "${group.replace('.', '/')}/root/1.0/root-1.0.jar").writeText("corrupt")
+                val base = File(folder, "libs-$group")
+                val downloader = DependencyDownloader(base).setParallelism(4)
+                downloader.addRepository(Repository(repo.toURI().toString()))
+                try {
+                    downloader.loadDependency(listOf(Repository(repo.toURI().toString())), listOf(Dependency(group, "root", "1.0", DependencyScope.RUNTIME)))
+                    error("checksum mismatch not detected")
+                } catch (_: IOException) {
+                }
+                require(!File(base, "${group.replace('.', '/')}/root/1.0/root-1.0.jar").exists())
+            }
+            return results
+        } finally {
+            folder.deleteRecursively()
+        }
+    }
+
+    /**
+     * 创建仓库并下载，返回按顺序排列的 "artifactId:version"
+     * root -> (left, right, latest)，left -> shared，right -> shared
+     */
+    fun download(folder: File, group: String, parallelism: Int): List<String> {
+        val repo = File(folder, "repo-$group")
+        artifact(repo, group, "root", "1.0", listOf("left" to "1.0", "right" to "1.0", "latest" to null))
+        artifact(repo, group, "left", "1.0", listOf("shared" to "1.0"))
+        artifact(repo, group, "right", "1.0", listOf("shared" to "1.0"))
+        artifact(repo, group, "shared", "1.0", emptyList())
+        artifact(repo, group, "latest", "1.0", emptyList())
+        artifact(repo, group, "latest", "2.0", emptyList())
+        File(repo, "${group.replace('.', '/')}/latest/maven-metadata.xml").writeText(
+            "<metadata><groupId>$group</groupId><artifactId>latest</artifactId><versioning><release>2.0</release></versioning></metadata>"
+        )
+        val base = File(folder, "libs-$group")
+        val url = repo.toURI().toString()
+        val downloader = DependencyDownloader(base).setParallelism(parallelism)
+        downloader.addRepository(Repository(url))
+        val loaded = downloader.loadDependency(listOf(Repository(url)), listOf(Dependency(group, "root", "1.0", DependencyScope.RUNTIME)))
+        loaded.forEach { dep ->
+            require(File(base, "${group.replace('.', '/')}/${dep.artifactId}/${dep.version}/${dep.artifactId}-${dep.version}.jar").exists()) { "$dep not downloaded" }
+        }
+        return loaded.map { "${it.artifactId}:${it.version}" }
+    }
+
+    /**
+     * 写入 pom 与 jar 文件及其 sha1 文件
+     */
+    fun artifact(repo: File, group: String, artifact: String, version: String, dependencies: List<Pair<String, String?>>) {
+        val dir = File(repo, "${group.replace('.', '/')}/$artifact/$version")
+        dir.mkdirs()
+        val pom = buildString {
+            append("<project><groupId>$group</groupId><artifactId>$artifact</artifactId><version>$version</version><dependencies>")
+            dependencies.forEach { (id, ver) ->
+                append("<dependency><groupId>$group</groupId><artifactId>$id</artifactId>")
+                if (ver != null) {
+                    append("<version>$ver</version>")
+                }
+                append("</dependency>")
+            }
+            append("</dependencies></project>")
+        }
+        write(File(dir, "$artifact-$version.pom"), pom.toByteArray())
+        write(File(dir, "$artifact-$version.jar"), "$group:$artifact:$version".toByteArray())
+    }
+
+    fun write(file: File, bytes: ByteArray) {
+        file.writeBytes(bytes)
+        val hash = MessageDigest.getInstance("SHA-1").digest(bytes).joinToString("") { "%02x".format(it) }
+        File(file.path + ".sha1").writeText(hash)
+    }
+}
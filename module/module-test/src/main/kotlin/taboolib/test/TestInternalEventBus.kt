@@ -0,0 +1,106 @@
+package taboolib.test
+
+import taboolib.common.Test
+import taboolib.common.event.CancelableInternalEvent
+import taboolib.common.event.InternalEvent
+import taboolib.common.event.InternalEventBus
+import java.util.concurrent.ConcurrentSkipListMap
+import java.util.concurrent.CopyOnWriteArrayList
+
+/**
+ * TabooLib
+ * taboolib.test.TestInternalEventBus
+ *
+ * 验证 [InternalEventBus] 的优先级顺序、取消与注销，并与逐次展开监听器列表的分发方式对比吞吐量
+ *
+ * @author agent
+ * @since 2026/10/17
+ */
+object TestInternalEventBus : Test() {
+
+    const val LISTENERS = 8
+
+    override fun check(): List<Result> {
+        val results = ArrayList<Result>()
+        results += sandbox("InternalEventBus:priority") {
+            val order = ArrayList<Int>()
+            val listeners = listOf(5, -3, 0, 5, 1).map { p -> InternalEventBus.listen<OrderEvent>(p) { order += p } }
+            try {
+                OrderEvent().call()
+                require(order == listOf(-3, 0, 1, 5, 5)) { order.toString() }
+            } finally {
+                listeners.forEach { it.cancel() }
+            }
+        }
+        results += sandbox("InternalEventBus:cancel") {
+            var called = 0
+            val first = InternalEventBus.listen<CancelEvent>(0) { it.isCancelled = true }
+            val ignored = InternalEventBus.listen<CancelEvent>(1, ignoreCancelled = true) { called++ }
+            val normal = InternalEventBus.listen<CancelEvent>(2) { called++ }
+            try {
+                require(!CancelEvent().callIf())
+                require(called == 1) { "called=$called" }
+            } finally {
+                listOf(first, ignored, normal).forEach { it.cancel() }
+            }
+            require(!InternalEventBus.isListening(CancelEvent::class.java))
+        }
+        results += benchmark()
+        return results
+    }
+
+    fun benchmark(times: Int = 1000000): Result {
+        return try {
+            var counter = 0L
+            val legacy = LegacyBus()
+            val listeners = List(LISTENERS) { i ->
+                legacy.listen(BenchmarkEvent::class.java, i % 3) { counter++ }
+                InternalEventBus.listen<BenchmarkEvent>(i % 3) { counter++ }
+            }
+            try {
+                val event = BenchmarkEvent()
+                val snapshot = measure(times) { InternalEventBus.call(event) }
+                val flatten = measure(times) { legacy.call(event) }
+                Success.of("InternalEventBus benchmark listeners=$LISTENERS snapshot=%.1fns flatten=%.1fns".format(snapshot, flatten))
+            } finally {
+                listeners.forEach { it.cancel() }
+            }
+        } catch (ex: Throwable) {
+            Failure.of("InternalEventBus benchmark", ex)
+        }
+    }
+
+    /**
+     * 单次分发的平均耗时（纳秒）
+     */
+    fun measure(times: Int, func: () -> Unit): Double {
+        // 预热
+        repeat(times / 10) { func() }
+        val start = System.nanoTime()
+        repeat(times) { func() }
+        return (System.nanoTime() - start).toDouble() / times
+    }
+
+    /**
+     * 每次分发时展开监听器列表的实现，用于对比
+     */
+    class LegacyBus {
+
+        val registeredListeners = HashMap<Class<*>, MutableMap<Int, MutableList<(Any) -> Unit>>>()
+
+        @Suppress("UNCHECKED_CAST")
+        fun <T : InternalEvent> listen(cls: Class<T>, priority: Int, listener: (T) -> Unit) {
+            registeredListeners.getOrPut(cls) { ConcurrentSkipListMap() }.getOrPut(priority) { CopyOnWriteArrayList() }.add(listener as (Any) -> Unit)
+        }
+
+        fun call(event: InternalEvent) {
+            registeredListeners[event.javaClass]?.entries?.flatMap { it.value }?.forEach { it(event) }
+        }
+    }
+
+    class OrderEvent : InternalEvent()
+
+    class CancelEvent : CancelableInternalEvent()
+
+    class BenchmarkEvent : InternalEvent()
+}
@@ -0,0 +1,80 @@
+package taboolib.test
+
+import taboolib.common.Test
+import taboolib.common.platform.function.console
+import taboolib.module.kether.KetherShell
+import taboolib.module.kether.ScriptOptions
+
+/**
+ * TabooLib
+ * taboolib.test.TestKetherBatch
+ *
+ * 对比 [KetherShell.evalBatch] 与逐个调用 [KetherShell.eval] 的结果，并输出 1000 名执行者下两者的吞吐量
+ *
+ * @author agent
+ * @since 2026/10/17
+ */
+object TestKetherBatch : Test() {
+
+    const val SENDERS = 1000
+
+    val scripts = listOf(
+        "&i",
+        "math &i * 2 + 1",
+        "check &i > 500",
+        "set a to math &i - 1 check &a == 499",
+    )
+
+    override fun check(): List<Result> {
+        val results = ArrayList<Result>()
+        scripts.forEach { source ->
+            results += sandbox("Kether:evalBatch($source)") {
+                val batch = batch(source)
+                val single = single(source)
+                if (batch != single) {
+                    error("batch=$batch, single=$single")
+                }
+            }
+        }
+        results += benchmark("set a to math &i * 2 check &a > 1000")
+        return results
+    }
+
+    fun benchmark(source: String, times: Int = 20): Result {
+        return try {
+            val batch = measure(times) { batch(source) }
+            val single = measure(times) { single(source) }
+            Success.of("Kether:evalBatch benchmark senders=$SENDERS batch=%.0f/s single=%.0f/s".format(batch, single))
+        } catch (ex: Throwable) {
+            Failure.of("Kether:evalBatch benchmark", ex)
+        }
+    }
+
+    /**
+     * 每秒执行的次数（执行者数量 × 轮数 / 耗时）
+     */
+    fun measure(times: Int, func: () -> Unit): Double {
+        // 预热
+        repeat(times / 2) { func() }
+        val start = System.nanoTime()
+        repeat(times) { func() }
+        return SENDERS.toDouble() * times / ((System.nanoTime() - start) / 1_000_000_000.0)
+    }
+
+    /**
+     * 以 evalBatch 执行，执行者按顺序获得变量 i
+     */
+    fun batch(source: String): List<Any?> {
+        var i = 0
+        return KetherShell.evalBatch(source, List(SENDERS) { console() }) { KetherShell.VariableMap("i" to i++) }.join()
+    }
+
+    /**
+     * 逐个执行
+     */
+    fun single(source: String): List<Any?> {
+        return List(SENDERS) { i ->
+            KetherShell.eval(source, ScriptOptions.builder().sender(console()).set("i", i).build()).join()
+        }
+    }
+}
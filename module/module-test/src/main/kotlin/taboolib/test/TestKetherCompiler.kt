@@ -0,0 +1,139 @@
+package taboolib.test
+
+import taboolib.common.Test
+import taboolib.module.kether.KetherCompiler
+import taboolib.module.kether.Script
+import taboolib.module.kether.ScriptContext
+import taboolib.module.kether.action.ActionGet
+import taboolib.module.kether.action.ActionLiteral
+import taboolib.module.kether.parseKetherScript
+import java.util.concurrent.CompletionException
+
+/**
+ * TabooLib
+ * taboolib.test.TestKetherCompiler
+ *
+ * 对比解释执行与编译执行的结果（包括异常处理的回退），并验证编译执行的耗时不超过解释执行的十分之一
+ *
+ * @author agent
+ * @since 2026/10/17
+ */
+object TestKetherCompiler : Test() {
+
+    val scripts = listOf(
+        "1",
+        "set a to 10 &a",
+        "set a to 10 math &a + 2 * 3",
+        "set a to 1.5 math &a * 2 - 1",
+        "set a to 3 check &a > 2",
+        "set a to 3 check &a == 3",
+        "set s to abc check &s == abc",
+        "set a to math 1 + 2 set b to math &a * &a &b",
+        "set a to 5 set b to check &a < 10 &b",
+        "math 7 / 2",
+        "set a to optional &b else 1 &a",
+        "set a to 2147483647 math &a + 1",
+        "set a to 0.1 math &a + 0.2",
+        "set a to 3 set b to 4 check math &a * &a + &b * &b == 25",
+        "set ~x to 5 math &~x * 2",
+        "set a to null &a",
+        "set a to pass &a",
+        "check &missing == null",
+        "set a to not check 1 == 2 &a",
+    )
+
+    /**
+     * 触发编译后代码中异常处理的脚本，回退结果应与解释执行一致
+     */
+    val guarded = listOf(
+        // 链式运算中的异常，回退为 0
+        "math 1 / 0",
+        "set s to abc math 1 + &s",
+        "set a to 2 math &a * 3 / 0 + 1",
+        // 变量写入中的异常，回退为 null
+        "set s to abc set a to math 1 + &s &a",
+        "set s to abc set a to check math 1 / 0 == 0 &a",
+        // 初始值的异常不会被处理，两者均应失败
+        "set s to abc math &s + 1",
+    )
+
+    /** 编译执行至少快于解释执行的倍数 */
+    const val TARGET = 10.0
+
+    override fun check(): List<Result> {
+        val results = ArrayList<Result>()
+        scripts.forEach { source ->
+            results += sandbox("Kether:compile($source)") {
+                val interpreted = eval(parse(source, false))
+                val compiled = eval(parse(source, true))
+                if (interpreted != compiled) {
+                    error("interpreted=$interpreted, compiled=$compiled")
+                }
+            }
+        }
+        guarded.forEach { source ->
+            results += sandbox("Kether:compile(guard $source)") {
+                // 确保语句确实被编译（顶层的常量与变量读取除外），从而经过编译后的异常处理
+                if (!parse(source, true).blocks["main"]!!.actions.all { it.action is KetherCompiler.CompiledAction || it.action is ActionGet<*> || it.action is ActionLiteral<*> }) {
+                    error("not compiled")
+                }
+                val interpreted = outcome(parse(source, false))
+                val compiled = outcome(parse(source, true))
+                if (interpreted != compiled) {
+                    error("interpreted=$interpreted, compiled=$compiled")
+                }
+            }
+        }
+        results += sandbox("Kether:compile(skip not immediate)") {
+            // optional 可能需要等待，所在的语句不会被编译
+            val actions = parse("set a to optional &b else 1", true).blocks["main"]!!.actions
+            if (actions[0].action is KetherCompiler.CompiledAction) {
+                error("not immediate action compiled")
+            }
+        }
+        results += benchmark("set a to 10 set b to math &a + 2 * 3 check &b > 20")
+        return results
+    }
+
+    fun benchmark(source: String, times: Int = 100000): Result {
+        return try {
+            val interpreted = measure(parse(source, false), times)
+            val compiled = measure(parse(source, true), times)
+            val message = "Kether:compile benchmark interpreted=%.3fus compiled=%.3fus (%.1fx)".format(interpreted, compiled, interpreted / compiled)
+            if (interpreted / compiled >= TARGET) Success.of(message) else Failure.of(message, "below ${TARGET}x target")
+        } catch (ex: Throwable) {
+            Failure.of("Kether:compile benchmark", ex)
+        }
+    }
+
+    /**
+     * 单次执行的平均耗时（微秒）
+     */
+    fun measure(script: Script, times: Int): Double {
+        // 预热
+        repeat(times / 10) { eval(script) }
+        val start = System.nanoTime()
+        repeat(times) { eval(script) }
+        return (System.nanoTime() - start) / 1000.0 / times
+    }
+
+    fun parse(source: String, compile: Boolean): Script {
+        val script = "def main = { $source }".parseKetherScript()
+        return if (compile) KetherCompiler.compile(script) else script
+    }
+
+    fun eval(script: Script): Any? {
+        return ScriptContext.create(script).runActions().join()
+    }
+
+    /**
+     * 执行结果，失败时为异常类型
+     */
+    fun outcome(script: Script): Any? {
+        return try {
+            eval(script)
+        } catch (ex: CompletionException) {
+            (ex.cause ?: ex).javaClass
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package taboolib.test
+
+import taboolib.common.Test
+import taboolib.module.kether.action.ActionLiteral
+import taboolib.module.kether.action.transform.ActionMath
+import taboolib.module.kether.inferType
+import taboolib.module.kether.literalAction
+import java.util.*
+
+/**
+ * TabooLib
+ * taboolib.test.TestKetherMath
+ *
+ * 以随机生成的运算验证 math 的常量折叠与整数、小数的直接计算，结果应与逐项使用 [ActionMath.Type.exec] 计算相同
+ *
+ * @author agent
+ * @since 2026/10/17
+ */
+@Suppress("DEPRECATION")
+object TestKetherMath : Test() {
+
+    val random = Random(20261017)
+
+    val types = ActionMath.Type.values()
+
+    override fun check(): List<Result> {
+        val results = ArrayList<Result>()
+        results += sandbox("Kether:math(calc)") {
+            repeat(10000) {
+                val type = types[random.nextInt(types.size)]
+                val a = nextNumber()
+                val b = nextOperand(true)
+                val calc = outcome { type.calc(a, b) }
+                val exec = outcome { type.exec(listOf(a, b)) }
+                if (calc != exec) {
+                    error("$a $type $b: calc=$calc, exec=$exec")
+                }
+            }
+        }
+        results += sandbox("Kether:math(fold)") {
+            repeat(1000) {
+                val values = List(random.nextInt(5) + 2) { nextOperand(true) }
+                val symbols = List(values.size - 1) { types[random.nextInt(types.size)] }
+                val chain = ActionMath.Chain(values.map { v -> literalAction(v) }, symbols).fold()
+                val folded = chain.actions.map { a -> (a.action as ActionLiteral<*>).value!! }
+                val expect = outcome { reference(values, symbols) }
+                val actual = outcome { reference(folded, chain.symbols) }
+                if (expect != actual) {
+                    error("$values $symbols: expect=$expect, folded=$actual")
+                }
+                // 能够计算的常量应当全部折叠
+                if (expect !is Class<*> && chain.actions.size != 1) {
+                    error("$values $symbols: not folded")
+                }
+            }
+        }
+        results += sandbox("Kether:math(script)") {
+            repeat(200) {
+                // 除数不为零，避免执行时的错误
+                val values = List(random.nextInt(4) + 2) { nextOperand(false).toString() }
+                val symbols = List(values.size - 1) { types[random.nextInt(types.size)] }
+                val source = buildString {
+                    append("set x to ${values.last()} math ${values[0]}")
+                    for (i in 1 until values.size - 1) {
+                        append(" ${symbol(symbols[i - 1])} ${values[i]}")
+                    }
+                    append(" ${symbol(symbols.last())} &x")
+                }
+                val expect = reference(values, symbols)
+                val interpreted = TestKetherCompiler.eval(TestKetherCompiler.parse(source, false))
+                val compiled = TestKetherCompiler.eval(TestKetherCompiler.parse(source, true))
+                if (expect != interpreted || expect != compiled) {
+                    error("$source: expect=$expect, interpreted=$interpreted, compiled=$compiled")
+                }
+            }
+        }
+        return results
+    }
+
+    /**
+     * 从左到右逐项计算
+     */
+    fun reference(values: List<Any>, symbols: List<ActionMath.Type>): Number {
+        var num = values[0].inferType() as Number
+        for (i in symbols.indices) {
+            num = symbols[i].exec(listOf(num, values[i + 1]))
+        }
+        return num
+    }
+
+    /**
+     * 计算结果，出错时为异常类型
+     */
+    fun outcome(func: () -> Number): Any {
+        return try {
+            func()
+        } catch (ex: Throwable) {
+            ex.javaClass
+        }
+    }
+
+    fun nextNumber(): Number {
+        return if (random.nextBoolean()) random.nextInt(41) - 20 else nextDouble()
+    }
+
+    /**
+     * 生成运算数，脚本中的字面量均为字符串
+     */
+    fun nextOperand(zero: Boolean): Any {
+        val value = when (random.nextInt(6)) {
+            0 -> random.nextInt(41) - 20
+            1 -> nextDouble()
+            2 -> (random.nextInt(41) - 20).toString()
+            3 -> nextDouble().toString()
+            4 -> listOf(Int.MAX_VALUE, Int.MIN_VALUE, Int.MAX_VALUE / 2)[random.nextInt(3)].toString()
+            else -> listOf("0.0", "-0.0", "1.0", "2147483648", "1e3")[random.nextInt(5)]
+        }
+        if (!zero && (value.toString() == "0" || value.toString() == "0.0" || value.toString() == "-0.0")) {
+            return nextOperand(false)
+        }
+        return value
+    }
+
+    fun nextDouble(): Double {
+        return Math.round((random.nextDouble() - 0.5) * 4000) / 100.0
+    }
+
+    fun symbol(type: ActionMath.Type): String {
+        return when (type) {
+            ActionMath.Type.ADD -> "+"
+            ActionMath.Type.SUB -> "-"
+            ActionMath.Type.MUL -> "*"
+            ActionMath.Type.DIV -> "/"
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package taboolib.test
+
+import taboolib.common.Test
+import taboolib.library.kether.SimpleQuest
+import taboolib.module.kether.KetherQuestCache
+import taboolib.module.kether.KetherScriptLoader
+import taboolib.module.kether.Script
+import taboolib.module.kether.ScriptService
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+
+/**
+ * TabooLib
+ * taboolib.test.TestKetherQuestCache
+ *
+ * 验证 [KetherQuestCache] 写入与读取的语句树执行结果与解析一致，并对比冷启动时解析与读取缓存的耗时
+ *
+ * @author agent
+ * @since 2026/10/17
+ */
+object TestKetherQuestCache : Test() {
+
+    val source = """
+        def main = {
+            set a to 12
+            set s to abc
+            if all [ check &a > 5 check &a < 20 ] then {
+                set b to math &a * 2 + 1
+            } else {
+                set b to 0
+            }
+            set c to type int math add [ &b 0.5 ]
+            while check &a < 16 then {
+                set a to math &a + 1
+            }
+            if any [ check &s == xyz not check &b == 0 ] then {
+                join [ &a &b &c ] by "-"
+            }
+        }
+    """.trimIndent()
+
+    override fun check(): List<Result> {
+        val results = ArrayList<Result>()
+        results += sandbox("KetherQuestCache:round trip") {
+            val script = parse()
+            val (cached, reparsed) = read(write(script))
+            val expect = TestKetherCompiler.outcome(script)
+            val actual = TestKetherCompiler.outcome(cached)
+            require(expect == actual) { "parse=$expect, cache=$actual" }
+            require(reparsed == 0) { "reparsed=$reparsed" }
+        }
+        results += benchmark()
+        return results
+    }
+
+    fun benchmark(times: Int = 10000): Result {
+        return try {
+            val bytes = write(parse())
+            val parse = TestKetherSync.measure(times) { parse() }
+            val cache = TestKetherSync.measure(times) { read(bytes) }
+            Success.of("KetherQuestCache benchmark parse=%.3fus cache=%.3fus (%.1fx)".format(parse, cache, parse / cache))
+        } catch (ex: Throwable) {
+            Failure.of("KetherQuestCache benchmark", ex)
+        }
+    }
+
+    fun parse(): Script {
+        return KetherScriptLoader().load(ScriptService, "test", source.toByteArray(), emptyList())
+    }
+
+    fun write(script: Script): ByteArray {
+        val bytes = ByteArrayOutputStream()
+        DataOutputStream(bytes).use { KetherQuestCache.Output(it).writeQuest(script as SimpleQuest) }
+        return bytes.toByteArray()
+    }
+
+    /**
+     * 读取语句树，返回脚本与重新解析的动作数量
+     */
+    fun read(bytes: ByteArray): Pair<Script, Int> {
+        val input = KetherQuestCache.Input(DataInputStream(ByteArrayInputStream(bytes)), emptyList())
+        return input.readQuest("test", source.toByteArray()) to input.reparsed
+    }
+}
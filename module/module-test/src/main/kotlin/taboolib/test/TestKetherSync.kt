@@ -0,0 +1,85 @@
+package taboolib.test
+
+import taboolib.common.Test
+import taboolib.library.kether.ParsedAction
+import taboolib.module.kether.KetherShell
+import taboolib.module.kether.ScriptContext
+import taboolib.module.kether.ScriptOptions
+import taboolib.module.kether.action.transform.ActionMath
+import taboolib.module.kether.actionNow
+import taboolib.module.kether.literalAction
+
+/**
+ * TabooLib
+ * taboolib.test.TestKetherSync
+ *
+ * 对比 [KetherShell.evalNow] 与 [KetherShell.eval] 的结果，验证嵌套的动作仍在子帧中执行，并输出常见条件脚本下两者的耗时
+ *
+ * @author agent
+ * @since 2026/10/17
+ */
+object TestKetherSync : Test() {
+
+    val scripts = listOf(
+        "check &a > 10",
+        "check math &a * 2 + 1 >= 21",
+        "all [ check &a > 5 check &a < 20 ]",
+        "any [ check &a == 1 check &s == abc ]",
+        "set b to math &a / 4 check &b > 2",
+        "not check &s == xyz",
+    )
+
+    override fun check(): List<Result> {
+        val results = ArrayList<Result>()
+        scripts.forEach { source ->
+            results += sandbox("Kether:evalNow($source)") {
+                val now = KetherShell.evalNow(source, options())
+                val future = KetherShell.eval(source, options()).join()
+                if (now != future) {
+                    error("evalNow=$now, eval=$future")
+                }
+            }
+        }
+        results += sandbox("Kether:evalNow(nested frame)") {
+            val context = ScriptContext.create(TestKetherCompiler.parse("1", false))
+            val root = context.rootFrame()
+            // 嵌套的动作写入的局部变量只存在于子帧中
+            val nested = ParsedAction(actionNow { variables().set("~t", 1); 1 })
+            val chain = ActionMath.Chain(listOf(nested, literalAction(2)), listOf(ActionMath.Type.ADD))
+            val result = ParsedAction(chain).processSync(root)
+            if ((result as? Number)?.toInt() != 3) {
+                error("result=$result")
+            }
+            if (root.variables().get<Any>("~t").isPresent) {
+                error("local variable leaked into the caller frame")
+            }
+        }
+        scripts.forEach { source -> results += benchmark(source) }
+        return results
+    }
+
+    fun benchmark(source: String, times: Int = 100000): Result {
+        return try {
+            val now = measure(times) { KetherShell.evalNow(source, options()) }
+            val future = measure(times) { KetherShell.eval(source, options()).join() }
+            Success.of("Kether:evalNow benchmark ($source) evalNow=%.3fus eval=%.3fus".format(now, future))
+        } catch (ex: Throwable) {
+            Failure.of("Kether:evalNow benchmark ($source)", ex)
+        }
+    }
+
+    /**
+     * 单次执行的平均耗时（微秒）
+     */
+    fun measure(times: Int, func: () -> Unit): Double {
+        // 预热
+        repeat(times / 10) { func() }
+        val start = System.nanoTime()
+        repeat(times) { func() }
+        return (System.nanoTime() - start) / 1000.0 / times
+    }
+
+    fun options(): ScriptOptions {
+        return ScriptOptions.builder().set("a", 12).set("s", "abc").build()
+    }
+}
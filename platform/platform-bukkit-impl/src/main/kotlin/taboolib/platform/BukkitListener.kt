@@ -11,6 +11,7 @@ import taboolib.common.platform.PlatformSide
 import taboolib.common.platform.event.EventPriority
 import taboolib.common.platform.event.ProxyListener
 import taboolib.common.platform.service.PlatformListener
+import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.CopyOnWriteArraySet
 
 /**
@@ -45,16 +46,21 @@ class BukkitListener : PlatformListener {
 
     class BukkitListener(private val clazz: Class<*>, val consumer: (Any) -> Unit) : Listener, EventExecutor, ProxyListener {
 
+        /** 每个具体事件类型的兼容性，只在首次收到该类型的事件时判断 */
+        val accepted = ConcurrentHashMap<Class<*>, Boolean>()
+
+        /** 不再记录不兼容的事件类型，只保留手动加入的类型以兼容旧代码，这些类型的事件仍会被跳过 */
+        @Deprecated("使用 accepted")
         val ignored = CopyOnWriteArraySet<Class<*>>()
 
+        @Suppress("DEPRECATION")
         override fun execute(listener: Listener, event: Event) {
-            if (ignored.contains(event.javaClass)) {
+            val eventClass = event.javaClass
+            if (ignored.isNotEmpty() && ignored.contains(eventClass)) {
                 return
             }
-            if (clazz.isAssignableFrom(event.javaClass)) {
+            if (eventClass === clazz || accepted.computeIfAbsent(eventClass) { clazz.isAssignableFrom(it) }) {
                 consumer(event)
-            } else {
-                ignored += event.javaClass
             }
         }
     }
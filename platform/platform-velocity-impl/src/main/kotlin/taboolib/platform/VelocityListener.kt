@@ -9,6 +9,7 @@ import taboolib.common.platform.event.PostOrder
 import taboolib.common.platform.event.ProxyListener
 import taboolib.common.platform.service.PlatformListener
 import taboolib.common.util.unsafeLazy
+import java.util.concurrent.ConcurrentHashMap
 
 /**
  * TabooLib
@@ -40,8 +41,12 @@ class VelocityListener : PlatformListener {
 
     class VelocityListener(private val clazz: Class<*>, val consumer: (Any) -> Unit) : ProxyListener, EventHandler<Any> {
 
+        /** 每个具体事件类型的兼容性，只在首次收到该类型的事件时判断 */
+        val accepted = ConcurrentHashMap<Class<*>, Boolean>()
+
         override fun execute(event: Any) {
-            if (clazz.isAssignableFrom(event.javaClass)) {
+            val eventClass = event.javaClass
+            if (eventClass === clazz || accepted.computeIfAbsent(eventClass) { clazz.isAssignableFrom(it) }) {
                 consumer(event)
             }
         }